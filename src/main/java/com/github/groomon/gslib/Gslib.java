@@ -1,7 +1,10 @@
 package com.github.groomon.gslib;
 
+import com.github.groomon.gslib.configuration.ConfigurationFile;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.concurrent.TimeUnit;
+
 public class Gslib extends JavaPlugin {
 
     @Override
@@ -11,6 +14,13 @@ public class Gslib extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        try {
+            if(!ConfigurationFile.awaitAsyncSaves(30, TimeUnit.SECONDS)) {
+                getLogger().warning("Not all configuration files could be saved in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         getLogger().info("gslib successfully disabled");
     }
 }
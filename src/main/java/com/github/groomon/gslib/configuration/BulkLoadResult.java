@@ -0,0 +1,45 @@
+package com.github.groomon.gslib.configuration;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of loading several {@link ConfigurationFile}s at once.
+ *
+ * @see ConfigurationFile#loadAll(java.util.Collection)
+ */
+public final class BulkLoadResult {
+
+    @NotNull
+    private final List<ConfigurationFile> loaded;
+    @NotNull
+    private final Map<ConfigurationFile, Exception> errors;
+
+    BulkLoadResult(@NotNull List<ConfigurationFile> loaded, @NotNull Map<ConfigurationFile, Exception> errors) {
+        this.loaded = Collections.unmodifiableList(loaded);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return The files which have been loaded successfully, in the order they were given.
+     */
+    @NotNull
+    public List<ConfigurationFile> getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return The files which could not be loaded, with the exception they failed with.
+     */
+    @NotNull
+    public Map<ConfigurationFile, Exception> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.groomon.gslib.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Listens to changes of values in a {@link ConfigurationFile}.
+ *
+ * @see ConfigurationFile#onChange(String, ChangeListener)
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    /**
+     * Called after a value has changed. Values inside sections are reported one by one, sections themselves are not
+     * reported.
+     *
+     * @param path The path of the changed value.
+     * @param oldValue The previous value, or null if the path was not set.
+     * @param newValue The new value, or null if the path has been removed.
+     */
+    void changed(@NotNull String path, @Nullable Object oldValue, @Nullable Object newValue);
+}
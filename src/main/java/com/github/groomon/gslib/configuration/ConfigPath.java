@@ -0,0 +1,181 @@
+package com.github.groomon.gslib.configuration;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A path compiled against a {@link ConfigurationFile}.
+ * <p>
+ * The section containing the value is resolved once and reused until sections are added or removed, or the file is
+ * reloaded, so repeated reads are a single lookup in that section and do not allocate. Like the file, a path should
+ * only be used from one thread. Modifications which bypass the ConfigurationFile, for
+ * example through {@link ConfigurationFile#getFileConfiguration()}, have to be reported with
+ * {@link ConfigurationFile#markDirty()} if they replace sections on the path.
+ * <p>
+ * Values missing from the file fall back to the defaults of the configuration, like the getters of
+ * {@link ConfigurationFile} do.
+ */
+public final class ConfigPath {
+
+    @NotNull
+    private final ConfigurationFile file;
+    @NotNull
+    private final String path;
+    @NotNull
+    private final String[] parents;
+    @NotNull
+    private final String key;
+    // the section containing the value and the version of the file it has been resolved at, missing sections are
+    // looked up again on every read, as they can be created without a structural change
+    @Nullable
+    private ConfigurationSection section;
+    private int version;
+
+    ConfigPath(@NotNull ConfigurationFile file, @NotNull String path, char separator) {
+        this.file = file;
+        this.path = path;
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int end;
+        while((end = path.indexOf(separator, start)) != -1) {
+            segments.add(path.substring(start, end));
+            start = end + 1;
+        }
+        parents = segments.toArray(new String[0]);
+        key = path.substring(start);
+    }
+
+    @Nullable
+    private ConfigurationSection section() {
+        int current = file.version();
+        if(section == null || version != current) {
+            ConfigurationSection resolved = file.getFileConfiguration();
+            for(String parent : parents) {
+                Object child = resolved.get(parent, null);
+                if(!(child instanceof ConfigurationSection)) {
+                    resolved = null;
+                    break;
+                }
+                resolved = (ConfigurationSection) child;
+            }
+            section = resolved;
+            version = current;
+        }
+        return section;
+    }
+
+    /**
+     * Gets the value without falling back to defaults.
+     */
+    @Nullable
+    private Object value() {
+        ConfigurationSection section = section();
+        return section == null ? null : section.get(key, null);
+    }
+
+    @NotNull
+    public String getPath() {
+        return path;
+    }
+
+    @NotNull
+    public ConfigurationFile getFile() {
+        return file;
+    }
+
+    @Nullable
+    public Object get() {
+        Object value = value();
+        return value != null ? value : file.get(path);
+    }
+
+    @Nullable
+    public Object get(@Nullable Object def) {
+        Object value = value();
+        return value != null ? value : def;
+    }
+
+    public boolean isSet() {
+        return value() != null || file.isSet(path);
+    }
+
+    public void set(@Nullable Object value) {
+        file.set(path, value);
+    }
+
+    @Nullable
+    public String getString() {
+        Object value = value();
+        return value != null ? value.toString() : file.getString(path);
+    }
+
+    @Nullable
+    public String getString(@Nullable String def) {
+        Object value = value();
+        return value != null ? value.toString() : def;
+    }
+
+    public int getInt() {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).intValue() : file.getInt(path);
+    }
+
+    public int getInt(int def) {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    public long getLong() {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).longValue() : file.getLong(path);
+    }
+
+    public long getLong(long def) {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+
+    public double getDouble() {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).doubleValue() : file.getDouble(path);
+    }
+
+    public double getDouble(double def) {
+        Object value = value();
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    public boolean getBoolean() {
+        Object value = value();
+        return value instanceof Boolean ? (Boolean) value : file.getBoolean(path);
+    }
+
+    public boolean getBoolean(boolean def) {
+        Object value = value();
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+
+    @Nullable
+    public <T> T getObject(@NotNull Class<T> type) {
+        Validate.notNull(type, "Type cannot be null");
+        Object value = value();
+        return type.isInstance(value) ? type.cast(value) : file.getObject(path, type);
+    }
+
+    @Nullable
+    public <T> T getObject(@NotNull Class<T> type, @Nullable T def) {
+        Validate.notNull(type, "Type cannot be null");
+        Object value = value();
+        return type.isInstance(value) ? type.cast(value) : def;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[path='" + path + "']";
+    }
+}
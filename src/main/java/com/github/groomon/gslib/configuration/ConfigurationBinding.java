@@ -0,0 +1,112 @@
+package com.github.groomon.gslib.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An object built from the values of a {@link ConfigurationFile}, which is rebuilt whenever the file is loaded or
+ * modified through it. The new object is only handed out once it is complete, so readers see either all old or all new
+ * values. After a modification, the object is rebuilt lazily, see {@link ConfigurationFile#bind(Function)}.
+ * <p>
+ * The objects are usually generated for interfaces annotated with
+ * {@link com.github.groomon.gslib.configuration.binding.ConfigBinding}, which hold the values in final fields, so
+ * reading them does not look up any paths.
+ *
+ * @param <T> The type of the bound object.
+ * @see ConfigurationFile#bind(Function)
+ */
+public final class ConfigurationBinding<T> implements Supplier<T> {
+
+    private static final Logger LOG = Logger.getLogger(ConfigurationBinding.class.getName());
+
+    @NotNull
+    private final ConfigurationFile file;
+    @NotNull
+    private final Function<ConfigurationFile, ? extends T> factory;
+    @NotNull
+    private volatile T current;
+    // set when the file has been modified, until the object is rebuilt on the thread which modified it
+    private volatile boolean stale;
+    @Nullable
+    private volatile Thread modifier;
+
+    ConfigurationBinding(@NotNull ConfigurationFile file, @NotNull Function<ConfigurationFile, ? extends T> factory) {
+        this.file = file;
+        this.factory = factory;
+        this.current = factory.apply(file);
+    }
+
+    /**
+     * Gets the object built from the current values. Can be called from any thread, but only the thread modifying
+     * the file rebuilds an outdated object, other threads get the previous object until then.
+     */
+    @NotNull
+    @Override
+    public T get() {
+        if(stale && Thread.currentThread() == modifier) rebuild();
+        return current;
+    }
+
+    /**
+     * Stops rebuilding the object. The last object stays available.
+     */
+    public void unbind() {
+        file.unbind(this);
+    }
+
+    /**
+     * Marks the object as outdated, called on the thread modifying the file.
+     */
+    void markStale() {
+        modifier = Thread.currentThread();
+        stale = true;
+    }
+
+    /**
+     * Builds the object again. If that fails, the previous object is kept.
+     */
+    void rebuild() {
+        stale = false;
+        try {
+            current = factory.apply(file);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Could not rebuild a binding of " + file.getFile(), e);
+        }
+    }
+
+    /**
+     * Wraps a list read from the configuration, for generated bindings.
+     *
+     * @return An unmodifiable view of the list, or null if it is null.
+     */
+    @Nullable
+    public static <E> List<E> list(@Nullable List<E> list) {
+        return list == null ? null : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Parses the name of an enum constant, for generated bindings.
+     *
+     * @param name The name, or null if the value is not set.
+     * @param type The enum.
+     * @param def The constant returned if the name is null or not a constant of the enum.
+     * @return The constant.
+     */
+    @Nullable
+    public static <E extends Enum<E>> E enumValue(@Nullable String name, @NotNull Class<E> type, @Nullable E def) {
+        if(name == null) return def;
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            LOG.warning("Unknown " + type.getSimpleName() + " '" + name + "', using " + def + " instead");
+            return def;
+        }
+    }
+}
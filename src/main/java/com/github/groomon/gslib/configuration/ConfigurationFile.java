@@ -1,5 +1,7 @@
 package com.github.groomon.gslib.configuration;
 
+import com.github.groomon.gslib.configuration.json.JsonConfiguration;
+import com.github.groomon.gslib.locations.ImmutableVector;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Color;
 import org.bukkit.Location;
@@ -18,9 +20,33 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * A wrapper for implementations of {@link FileConfiguration}. It allows to use the same wrapper for several data formats and provides easier save and loading mechanics.
@@ -31,26 +57,52 @@ import java.util.Set;
  */
 public class ConfigurationFile {
 
+    private static final Logger LOG = Logger.getLogger(ConfigurationFile.class.getName());
+
     //TODO logging
     //TODO javadoc
 
-    private final FileConfiguration config;
+    private FileConfiguration config;
     private File configFile;
     private String defaultFile;
     private boolean loadDefaultWhenFileMissing;
     private boolean saveOnDefaultLoad;
+    private boolean atomicSave;
+    private boolean compress;
+    private boolean keepBackup;
     private JavaPlugin plugin;
+    private volatile boolean dirty;
+    private volatile int version;
+    private volatile Map<String, Object[]> typedCache;
+    private volatile ConfigurationSnapshot snapshot;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // paths modified since the last snapshot, or null if the next snapshot has to copy everything
+    private Set<String> snapshotChanges;
+    private JavaPlugin writeBehindPlugin;
+    private long writeBehindTicks;
+    private final AtomicBoolean writeBehindScheduled = new AtomicBoolean();
+    // the state of the file when it was last loaded or saved
+    private volatile long syncedModified;
+    private volatile long syncedLength;
+    // changes whenever the file is loaded, or a save or journal append starts or ends
+    private final AtomicInteger diskVersion = new AtomicInteger();
+    private final ConfigurationJournal journal = new ConfigurationJournal();
+    private final List<ConfigurationBinding<?>> bindings = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean bindingRebuildScheduled = new AtomicBoolean();
 
     public ConfigurationFile(@NotNull FileConfiguration implementation) {
         Validate.notNull(implementation, "The FileConfiguration implementation cannot be null");
         config = implementation;
         saveOnDefaultLoad = false;
         loadDefaultWhenFileMissing = true;
+        atomicSave = true;
+        keepBackup = false;
     }
 
     //TODO rename method?
     /**
-     * Gets the underlying {@link FileConfiguration}.
+     * Gets the underlying {@link FileConfiguration}. The instance is replaced when the file is reloaded by a
+     * {@link ConfigurationWatcher}, so it should not be kept around.
      *
      * @return The wrapped FileConfiguration.
      */
@@ -71,18 +123,126 @@ public class ConfigurationFile {
         return this;
     }
 
+    /**
+     * Sets whether the configuration file is saved atomically. If enabled, which is the default, the file is written
+     * to a temporary file first, which replaces the configuration file once it has been written completely. A crash
+     * during the save then cannot leave a partially written file behind.
+     *
+     * @param atomic Whether to save atomically.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile atomicSave(boolean atomic) {
+        atomicSave = atomic;
+        return this;
+    }
+
+    /**
+     * Sets whether the previous version of the configuration file is kept as {@code <name>.bak} when it is saved.
+     * Only applies to atomic saves.
+     *
+     * @param keep Whether to keep a backup.
+     * @return This ConfigurationFile.
+     * @see #atomicSave(boolean)
+     */
+    @NotNull
+    public ConfigurationFile keepBackup(boolean keep) {
+        keepBackup = keep;
+        return this;
+    }
+
+    /**
+     * Sets whether the configuration file is saved gzip compressed. The contents are compressed while they are
+     * written. Files are loaded the same way whether they are compressed or not, as compressed files are recognized by
+     * their header, so this can be changed for existing files. A journal is not compressed.
+     *
+     * @param compress Whether to compress the file.
+     * @return This ConfigurationFile.
+     * @see #journal(long)
+     */
+    @NotNull
+    public ConfigurationFile compress(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    /**
+     * Enables journal mode, for large files which are modified in small steps. Instead of rewriting the whole file,
+     * a save appends the values modified since the previous save to {@code <name>.journal} next to it, which is
+     * replayed whenever the file is loaded. Once the journal has grown past the given size, the whole file is written
+     * again in the background and the journal is discarded.
+     * <p>
+     * Only modifications made through this wrapper are tracked. After {@link #markDirty()} or loading other contents,
+     * the next save writes the whole file. Paths are recorded using the current path separator, which must not be
+     * changed afterwards.
+     *
+     * @param compactSize The size of the journal in bytes above which it is compacted into the file.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile journal(long compactSize) {
+        Validate.isTrue(compactSize > 0, "Compact size must be positive");
+        journal.enable(compactSize);
+        return this;
+    }
+
+    /**
+     * Sets whether records appended to the journal are forced to the disk before a save returns, which is enabled by
+     * default. Without it, appending is faster, but the last records may get lost if the system crashes, although
+     * not if only the server does.
+     *
+     * @param sync Whether to force appended records to the disk.
+     * @return This ConfigurationFile.
+     * @see #journal(long)
+     */
+    @NotNull
+    public ConfigurationFile journalSync(boolean sync) {
+        journal.sync(sync);
+        return this;
+    }
+
+    /**
+     * Disables journal mode. The next save writes the whole file and removes the journal.
+     *
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile disableJournal() {
+        journal.disable();
+        return this;
+    }
+
+    /**
+     * Sets whether converted values are cached. If enabled, {@link #getVector(String)} and the list getters, such as
+     * {@link #getIntegerList(String)}, convert a value only once and return the same result until the value is
+     * modified through this wrapper or the file is loaded again. Vectors are returned as {@link ImmutableVector} and
+     * lists are unmodifiable, as they are shared between callers.
+     * <p>
+     * Values modified without going through this wrapper have to be reported with {@link #markDirty()}.
+     *
+     * @param enabled Whether to cache converted values.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile typedCache(boolean enabled) {
+        typedCache = enabled ? new ConcurrentHashMap<>() : null;
+        return this;
+    }
+
     @NotNull
     public ConfigurationFile setDefault(String file, JavaPlugin plugin) {
         Validate.notNull(file, "File cannot be null");
         Validate.notNull(plugin, "Plugin cannot be null");
 
-        InputStream is = plugin.getResource(file);
-        Validate.notNull(is, "File cannot be found");
-        try {
-            is.close();
-        } catch (IOException e) {
-            //TODO logging
-            e.printStackTrace();
+        if(!DefaultTemplates.isCached(plugin, file, config)) {
+            InputStream is = plugin.getResource(file);
+            Validate.notNull(is, "File cannot be found");
+            try {
+                is.close();
+            } catch (IOException e) {
+                //TODO logging
+                e.printStackTrace();
+            }
         }
 
         defaultFile = file;
@@ -104,11 +264,24 @@ public class ConfigurationFile {
         return this;
     }
 
+    @Nullable
+    public File getFile() {
+        return configFile;
+    }
+
     @NotNull
     public ConfigurationFile load() throws IOException, InvalidConfigurationException {
         if(configFile == null) throw new IllegalStateException("Configuration file has not been set");
         if(configFile.exists()) {
-            config.load(configFile);
+            Map<String, Object> before = captureValues(null);
+            ConfigurationIO.load(config, configFile);
+            ConfigurationJournal.replay(configFile, config);
+            dirty = false;
+            synced();
+            journal.reset();
+            invalidate(null);
+            rebuildBindings();
+            fireChanges(before, captureValues(null));
         } else if(loadDefaultWhenFileMissing) {
             loadDefault();
             if(saveOnDefaultLoad) save();
@@ -119,21 +292,30 @@ public class ConfigurationFile {
     @NotNull
     public ConfigurationFile load(@NotNull File file) throws FileNotFoundException, IOException, InvalidConfigurationException {
         Validate.notNull(file, "File cannot be null");
-        config.load(file);
+        Map<String, Object> before = captureValues(null);
+        ConfigurationIO.load(config, file);
+        modified(null);
+        fireChanges(before, captureValues(null));
         return this;
     }
 
     @NotNull
     public ConfigurationFile load(@NotNull String file) throws FileNotFoundException, IOException, InvalidConfigurationException {
         Validate.notNull(file, "File cannot be null");
-        config.load(file);
+        Map<String, Object> before = captureValues(null);
+        ConfigurationIO.load(config, new File(file));
+        modified(null);
+        fireChanges(before, captureValues(null));
         return this;
     }
 
     @NotNull
     public ConfigurationFile loadFromString(@NotNull String contents) throws InvalidConfigurationException {
         Validate.notNull(contents, "Contents cannot be null");
+        Map<String, Object> before = captureValues(null);
         config.loadFromString(contents);
+        modified(null);
+        fireChanges(before, captureValues(null));
         return this;
     }
 
@@ -141,25 +323,46 @@ public class ConfigurationFile {
     public ConfigurationFile loadDefault() throws IOException, InvalidConfigurationException {
         if(plugin == null) throw new IllegalStateException("Plugin has not been set");
         if(configFile == null) throw new IllegalStateException("Default file has not been set");
-        InputStream is = plugin.getResource(defaultFile);
-        if(is == null) throw new FileNotFoundException("Default file could not be found");
-        config.load(new InputStreamReader(is));
-        try {
-            is.close();
-        } catch (IOException e) {
-            //TODO logging
-            e.printStackTrace();
-        }
+        Map<String, Object> before = captureValues(null);
+        DefaultTemplates.load(plugin, defaultFile, config, () -> newConfiguration(false));
+        modified(null);
+        fireChanges(before, captureValues(null));
         return this;
     }
 
     @NotNull
     public ConfigurationFile save() throws IOException {
         if(configFile == null) throw new IllegalStateException("Configuration file has not been set");
-        config.save(configFile);
+        if(journal.canAppend(configFile)) {
+            appendJournal();
+            return this;
+        }
+        // written on this thread, even if it is an I/O thread, but only after an earlier saveAsync() or a
+        // compaction which is still in progress
+        byte[] snapshot = beginSave();
+        try {
+            ConfigurationIO.writeNow(configFile, snapshot, writeMode());
+        } catch (IOException | RuntimeException e) {
+            endSave(e);
+            throw e;
+        }
+        endSave(null);
         return this;
     }
 
+    /**
+     * Saves the configuration file only if it has been modified since it was last loaded or saved.
+     *
+     * @return Whether the file has been saved.
+     * @throws IOException If the file cannot be written.
+     * @see #isDirty()
+     */
+    public boolean saveIfDirty() throws IOException {
+        if(!dirty) return false;
+        save();
+        return true;
+    }
+
     @NotNull
     public ConfigurationFile save(File file) throws IOException {
         Validate.notNull(file, "File cannot be null");
@@ -179,6 +382,245 @@ public class ConfigurationFile {
         return config.saveToString();
     }
 
+    /**
+     * Loads the configuration file on the I/O executor, following the same rules as {@link #load()}.
+     * <p>
+     * The underlying {@link FileConfiguration} must not be accessed until the returned future has completed.
+     *
+     * @return A future completing with this ConfigurationFile once it has been loaded.
+     */
+    @NotNull
+    public CompletableFuture<ConfigurationFile> loadAsync() {
+        if(configFile == null) throw new IllegalStateException("Configuration file has not been set");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load();
+            } catch (IOException | InvalidConfigurationException e) {
+                throw new CompletionException(e);
+            }
+        }, ConfigurationIO.EXECUTOR);
+    }
+
+    /**
+     * Loads all the given files in parallel, using one thread per core. Each file is loaded following the same rules
+     * as {@link #load()}, and a file failing to load does not stop the others from being loaded.
+     * <p>
+     * Blocks until all files have been loaded. The files must not be accessed by other threads in the meantime.
+     *
+     * @param files The files to load.
+     * @return The loaded files and the errors of the files which could not be loaded.
+     */
+    @NotNull
+    public static BulkLoadResult loadAll(@NotNull Collection<ConfigurationFile> files) {
+        Validate.notNull(files, "Files cannot be null");
+        List<ConfigurationFile> list = new ArrayList<>(files);
+        List<ForkJoinTask<Exception>> tasks = new ArrayList<>(list.size());
+        for(ConfigurationFile file : list) {
+            tasks.add(ConfigurationIO.PARSER.submit(() -> {
+                try {
+                    file.load();
+                    return null;
+                } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+
+        List<ConfigurationFile> loaded = new ArrayList<>(list.size());
+        Map<ConfigurationFile, Exception> errors = new LinkedHashMap<>();
+        for(int i = 0; i < list.size(); i++) {
+            Exception error = tasks.get(i).join();
+            if(error == null) {
+                loaded.add(list.get(i));
+            } else {
+                errors.put(list.get(i), error);
+            }
+        }
+        return new BulkLoadResult(loaded, errors);
+    }
+
+    /**
+     * Loads all files with the given extension in the directory and its subdirectories in parallel.
+     *
+     * @param directory The directory to search.
+     * @param extension The extension of the files to load, such as {@code .json}.
+     * @param factory Creates the {@link FileConfiguration} implementation for each file.
+     * @return The loaded files and the errors of the files which could not be loaded.
+     * @throws IOException If the directory cannot be read.
+     * @see #loadAll(Collection)
+     */
+    @NotNull
+    public static BulkLoadResult loadAll(@NotNull File directory, @NotNull String extension,
+                                         @NotNull Supplier<FileConfiguration> factory) throws IOException {
+        Validate.notNull(directory, "Directory cannot be null");
+        Validate.notNull(extension, "Extension cannot be null");
+        Validate.notNull(factory, "Factory cannot be null");
+        List<ConfigurationFile> files = new ArrayList<>();
+        if(directory.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(directory.toPath())) {
+                Iterator<Path> it = paths.filter(path -> path.getFileName().toString().endsWith(extension) && Files.isRegularFile(path))
+                        .sorted().iterator();
+                while(it.hasNext()) {
+                    files.add(new ConfigurationFile(factory.get()).setFile(it.next().toFile()));
+                }
+            }
+        }
+        return loadAll(files);
+    }
+
+    /**
+     * Loads all the given files in parallel without blocking, see {@link #loadAll(Collection)}.
+     *
+     * @param files The files to load.
+     * @return A future completing with the result once all files have been loaded.
+     */
+    @NotNull
+    public static CompletableFuture<BulkLoadResult> loadAllAsync(@NotNull Collection<ConfigurationFile> files) {
+        Validate.notNull(files, "Files cannot be null");
+        List<ConfigurationFile> list = new ArrayList<>(files);
+        return CompletableFuture.supplyAsync(() -> loadAll(list), ConfigurationIO.EXECUTOR);
+    }
+
+    /**
+     * Saves the configuration file on the I/O executor.
+     * <p>
+     * The current contents are captured on the calling thread, so later modifications do not affect this save. If
+     * several saves of the same file are queued, only the latest snapshot is written. In journal mode, the
+     * modifications are appended to the journal on the calling thread instead, which only takes as long as writing
+     * the modified values.
+     *
+     * @return A future completing with this ConfigurationFile once the snapshot, or a newer one, has been written.
+     * @see #journal(long)
+     */
+    @NotNull
+    public CompletableFuture<ConfigurationFile> saveAsync() {
+        if(configFile == null) throw new IllegalStateException("Configuration file has not been set");
+        if(journal.canAppend(configFile)) {
+            try {
+                appendJournal();
+            } catch (IOException e) {
+                CompletableFuture<ConfigurationFile> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            return CompletableFuture.completedFuture(this);
+        }
+        return writeSnapshot();
+    }
+
+    /**
+     * Writes the whole configuration on the I/O executor.
+     */
+    @NotNull
+    private CompletableFuture<ConfigurationFile> writeSnapshot() {
+        byte[] snapshot;
+        try {
+            snapshot = beginSave();
+        } catch (IOException e) {
+            CompletableFuture<ConfigurationFile> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return ConfigurationIO.write(configFile, snapshot, writeMode()).handle((v, e) -> {
+            endSave(e);
+            if(e != null) {
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            return this;
+        });
+    }
+
+    /**
+     * Captures the current contents to be written asynchronously and marks this configuration as saved. The write
+     * has to be reported with {@link #endSave(Throwable)} once it has completed.
+     *
+     * @return The contents of the file.
+     */
+    @NotNull
+    byte[] beginSave() throws IOException {
+        dirty = false;
+        diskVersion.incrementAndGet();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeTo(buffer);
+            journal.beginSnapshot(configFile);
+            return buffer.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            setDirty();
+            throw e;
+        }
+    }
+
+    /**
+     * Reports the completion of a write started with {@link #beginSave()}.
+     *
+     * @param error The error the write failed with, or null if it succeeded.
+     */
+    void endSave(@Nullable Throwable error) {
+        journal.endSnapshot(configFile, error == null);
+        if(error != null) {
+            setDirty();
+        } else {
+            synced();
+        }
+    }
+
+    /**
+     * Appends the modifications to the journal, compacting it in the background once it has grown too large.
+     */
+    private void appendJournal() throws IOException {
+        dirty = false;
+        diskVersion.incrementAndGet();
+        boolean compact;
+        try {
+            compact = journal.append(configFile, config);
+        } catch (IOException | RuntimeException e) {
+            setDirty();
+            throw e;
+        }
+        if(compact) {
+            writeSnapshot().exceptionally(e -> {
+                LOG.log(Level.SEVERE, "Could not compact the journal of " + configFile, e);
+                return this;
+            });
+        }
+    }
+
+    private void writeTo(@NotNull OutputStream out) throws IOException {
+        if(compress) {
+            ConfigurationIO.compressed(this::writeContents).writeTo(out);
+        } else {
+            writeContents(out);
+        }
+    }
+
+    private void writeContents(@NotNull OutputStream out) throws IOException {
+        if(config instanceof StreamingConfiguration) {
+            ((StreamingConfiguration) config).save(out);
+        } else {
+            out.write(ConfigurationIO.encode(config.saveToString()));
+        }
+    }
+
+    @NotNull
+    ConfigurationIO.WriteMode writeMode() {
+        if(!atomicSave) return ConfigurationIO.WriteMode.DIRECT;
+        return keepBackup ? ConfigurationIO.WriteMode.ATOMIC_WITH_BACKUP : ConfigurationIO.WriteMode.ATOMIC;
+    }
+
+    /**
+     * Waits until all saves started by {@link #saveAsync()} have been written. This should be called before the
+     * plugin is disabled, as the I/O threads do not keep the server running.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return Whether all saves have completed in time.
+     * @throws InterruptedException If the calling thread was interrupted while waiting.
+     */
+    public static boolean awaitAsyncSaves(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        return ConfigurationIO.awaitPendingWrites(timeout, unit);
+    }
+
 
 
 //    /**
@@ -365,6 +807,526 @@ public class ConfigurationFile {
 
 
 
+    /**
+     * Checks whether this configuration has been modified since it was last loaded from or saved to its file.
+     * <p>
+     * Only modifications made through this wrapper are tracked. Objects returned by getters, such as lists, or
+     * sections modified directly have to be reported with {@link #markDirty()}.
+     *
+     * @return Whether there are unsaved modifications.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks this configuration as modified. If write-behind is enabled, a save is scheduled.
+     * <p>
+     * This also drops everything cached for the current contents, such as the resolved {@link ConfigPath}s.
+     */
+    public void markDirty() {
+        modified(null);
+    }
+
+    /**
+     * Called after the value at the given path, or the whole configuration if null, has been modified.
+     */
+    private void modified(@Nullable String path) {
+        modified(path, true);
+    }
+
+    /**
+     * Called after the value at the given path has been modified.
+     *
+     * @param path The modified path, or null if the whole configuration might have been modified.
+     * @param structural Whether a section was added or removed at the path, which affects the paths below it.
+     */
+    private void modified(@Nullable String path, boolean structural) {
+        journal.changed(path);
+        invalidate(path, structural);
+        markBindingsStale();
+        setDirty();
+    }
+
+    private void rebuildBindings() {
+        for(ConfigurationBinding<?> binding : bindings) {
+            binding.rebuild();
+        }
+    }
+
+    /**
+     * Lets the bindings rebuild their objects once they are read, so a series of modifications rebuilds them once.
+     * If a plugin is known, the bindings are rebuilt on the next tick as well, for readers on other threads.
+     */
+    private void markBindingsStale() {
+        if(bindings.isEmpty()) return;
+        for(ConfigurationBinding<?> binding : bindings) {
+            binding.markStale();
+        }
+        JavaPlugin owner = writeBehindPlugin != null ? writeBehindPlugin : plugin;
+        // only modifications on the main thread can be followed by a rebuild on the main thread
+        if(owner != null && owner.isEnabled() && owner.getServer().isPrimaryThread()
+                && bindingRebuildScheduled.compareAndSet(false, true)) {
+            owner.getServer().getScheduler().runTask(owner, () -> {
+                bindingRebuildScheduled.set(false);
+                for(ConfigurationBinding<?> binding : bindings) {
+                    binding.get();
+                }
+            });
+        }
+    }
+
+    private void invalidate(@Nullable String path) {
+        invalidate(path, true);
+    }
+
+    /**
+     * Drops everything cached for the value at the given path, or for the whole configuration if null.
+     */
+    private void invalidate(@Nullable String path, boolean structural) {
+        // compiled paths only depend on the sections, which do not change when a value is replaced
+        if(path == null || structural) version++;
+        Set<String> changes = snapshotChanges;
+        if(changes != null) {
+            if(path == null || changes.size() >= MAX_SNAPSHOT_CHANGES) {
+                snapshotChanges = null;
+            } else {
+                changes.add(path);
+            }
+        }
+        Map<String, Object[]> cache = typedCache;
+        if(cache == null || cache.isEmpty()) return;
+        if(path == null) {
+            cache.clear();
+            return;
+        }
+        cache.remove(path);
+        char separator = config.options().pathSeparator();
+        // a value at a parent path is replaced by a section
+        for(int i = path.indexOf(separator); i != -1; i = path.indexOf(separator, i + 1)) {
+            cache.remove(path.substring(0, i));
+        }
+        if(structural) {
+            String prefix = path + separator;
+            cache.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    // above this, copying the whole configuration is not much slower than updating the changed paths one by one
+    private static final int MAX_SNAPSHOT_CHANGES = 1024;
+
+    private static final int VECTOR = 0;
+    private static final int STRING_LIST = 1;
+    private static final int INTEGER_LIST = 2;
+    private static final int BOOLEAN_LIST = 3;
+    private static final int DOUBLE_LIST = 4;
+    private static final int FLOAT_LIST = 5;
+    private static final int LONG_LIST = 6;
+    private static final int BYTE_LIST = 7;
+    private static final int CHARACTER_LIST = 8;
+    private static final int SHORT_LIST = 9;
+    private static final int MAP_LIST = 10;
+    private static final int TYPED_SLOTS = 11;
+    // cached for values which are not set
+    private static final Object ABSENT = new Object();
+
+    /**
+     * Gets the converted value at the given path from the typed cache, converting it if it has not been cached yet.
+     *
+     * @return The converted value, or null if the path has no value of the requested type.
+     */
+    @Nullable
+    private Object getTyped(@NotNull String path, int slot) {
+        Map<String, Object[]> cache = typedCache;
+        if(cache == null) return convert(path, slot);
+        Object[] values = cache.get(path);
+        Object value = values == null ? null : values[slot];
+        if(value == null) {
+            value = convert(path, slot);
+            // replaced instead of modified in place, so readers on other threads never see a partially filled array
+            Object[] updated = values == null ? new Object[TYPED_SLOTS] : Arrays.copyOf(values, TYPED_SLOTS);
+            updated[slot] = value == null ? ABSENT : value;
+            cache.put(path, updated);
+            return value;
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    @Nullable
+    private Object convert(@NotNull String path, int slot) {
+        boolean shared = typedCache != null;
+        switch (slot) {
+            case VECTOR:
+                Vector vector = config.getVector(path);
+                return vector == null || !shared || vector instanceof ImmutableVector ? vector : new ImmutableVector(vector);
+            case STRING_LIST: return share(config.getStringList(path), shared);
+            case INTEGER_LIST: return share(config.getIntegerList(path), shared);
+            case BOOLEAN_LIST: return share(config.getBooleanList(path), shared);
+            case DOUBLE_LIST: return share(config.getDoubleList(path), shared);
+            case FLOAT_LIST: return share(config.getFloatList(path), shared);
+            case LONG_LIST: return share(config.getLongList(path), shared);
+            case BYTE_LIST: return share(config.getByteList(path), shared);
+            case CHARACTER_LIST: return share(config.getCharacterList(path), shared);
+            case SHORT_LIST: return share(config.getShortList(path), shared);
+            case MAP_LIST: return share(config.getMapList(path), shared);
+            default: throw new IllegalArgumentException("Unknown slot " + slot);
+        }
+    }
+
+    @NotNull
+    private static <T> List<T> share(@NotNull List<T> list, boolean shared) {
+        return shared ? Collections.unmodifiableList(list) : list;
+    }
+
+    /**
+     * Takes an immutable snapshot of the current contents, which can be handed to and read from any thread. Only the
+     * sections containing values modified since the previous snapshot are copied, everything else is shared with it.
+     * <p>
+     * This has to be called on the thread modifying this configuration, usually the main thread. Values modified
+     * without going through this wrapper have to be reported with {@link #markDirty()}.
+     *
+     * @return The snapshot.
+     * @see #latestSnapshot()
+     */
+    @NotNull
+    public ConfigurationSnapshot snapshot() {
+        ConfigurationSnapshot current = snapshot;
+        Set<String> changes = snapshotChanges;
+        if(current != null && changes != null && changes.isEmpty()) return current;
+        char separator = config.options().pathSeparator();
+        if(current == null || changes == null) {
+            Configuration defaults = config.getDefaults();
+            current = ConfigurationSnapshot.of(config,
+                    defaults == null ? null : ConfigurationSnapshot.of(defaults, null, separator), separator);
+        } else {
+            current = current.update(config, changes);
+        }
+        snapshotChanges = new HashSet<>();
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * Gets the snapshot last taken with {@link #snapshot()}. Unlike taking a snapshot, this can be called from any
+     * thread.
+     *
+     * @return The latest snapshot, or null if none has been taken yet.
+     */
+    @Nullable
+    public ConfigurationSnapshot latestSnapshot() {
+        return snapshot;
+    }
+
+    private void synced() {
+        syncedModified = configFile.lastModified();
+        syncedLength = configFile.length();
+        diskVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the size of the file when it was last loaded or saved by this configuration, or 0 if it has not been
+     * loaded from or saved to the file yet. Can be called from any thread.
+     */
+    long syncedSize() {
+        return syncedLength;
+    }
+
+    /**
+     * Gets a counter which changes whenever the file is loaded or written by this configuration, so a reload parsed
+     * in the meantime can be discarded. Can be called from any thread.
+     */
+    int diskVersion() {
+        return diskVersion.get();
+    }
+
+    /**
+     * Checks whether the configuration file has been changed by someone else since it was last loaded or saved.
+     */
+    boolean isChangedOnDisk() {
+        File file = configFile;
+        return file != null && file.exists() && (file.lastModified() != syncedModified || file.length() != syncedLength);
+    }
+
+    /**
+     * Parses the configuration file into a new instance of the underlying {@link FileConfiguration}, leaving the
+     * current contents untouched. Can be called from any thread.
+     *
+     * @return The parsed configuration, to be passed to {@link #replace(FileConfiguration)}.
+     */
+    @NotNull
+    FileConfiguration parseFile() throws IOException, InvalidConfigurationException {
+        File file = configFile;
+        if(file == null) throw new IllegalStateException("Configuration file has not been set");
+        FileConfiguration fresh = newConfiguration(true);
+        ConfigurationIO.load(fresh, file);
+        ConfigurationJournal.replay(file, fresh);
+        return fresh;
+    }
+
+    /**
+     * Creates an empty instance of the underlying {@link FileConfiguration} with the same options.
+     *
+     * @param withDefaults Whether the instance gets the same defaults as well.
+     */
+    @NotNull
+    FileConfiguration newConfiguration(boolean withDefaults) {
+        FileConfiguration fresh;
+        try {
+            fresh = config.getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(config.getClass().getName() + " cannot be created without arguments", e);
+        }
+        FileConfigurationOptions options = config.options();
+        fresh.options().pathSeparator(options.pathSeparator())
+                .copyDefaults(options.copyDefaults())
+                .header(options.header())
+                .copyHeader(options.copyHeader());
+        if(fresh instanceof JsonConfiguration && config instanceof JsonConfiguration) {
+            ((JsonConfiguration) fresh).options().lazyDepth(((JsonConfiguration) config).options().lazyDepth());
+        }
+        Configuration defaults = config.getDefaults();
+        if(withDefaults && defaults != null) fresh.setDefaults(defaults);
+        return fresh;
+    }
+
+    /**
+     * Replaces the underlying {@link FileConfiguration} with one parsed by {@link #parseFile()}. Has to be called on
+     * the thread modifying this configuration.
+     */
+    void replace(@NotNull FileConfiguration fresh) {
+        Map<String, Object> before = captureValues(null);
+        config = fresh;
+        dirty = false;
+        synced();
+        journal.reset();
+        invalidate(null);
+        rebuildBindings();
+        fireChanges(before, captureValues(null));
+    }
+
+    /**
+     * Gets a counter which changes whenever sections might have been added or removed, or the contents replaced.
+     */
+    int version() {
+        return version;
+    }
+
+    private void setDirty() {
+        dirty = true;
+        JavaPlugin owner = writeBehindPlugin;
+        if(owner != null && owner.isEnabled() && writeBehindScheduled.compareAndSet(false, true)) {
+            owner.getServer().getScheduler().runTaskLater(owner, this::flushWriteBehind, writeBehindTicks);
+        }
+    }
+
+    /**
+     * Enables write-behind. Once this configuration is modified, it is saved asynchronously after the given
+     * interval, so that it is written at most once per interval no matter how often it is changed. Nothing is written
+     * while the configuration is unmodified.
+     * <p>
+     * Pending modifications are not written automatically when the plugin is disabled; use {@link #saveIfDirty()}.
+     *
+     * @param plugin The plugin used to schedule the saves.
+     * @param interval The delay between the first modification and the save.
+     * @param unit The unit of the interval.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile writeBehind(@NotNull JavaPlugin plugin, long interval, @NotNull TimeUnit unit) {
+        Validate.notNull(plugin, "Plugin cannot be null");
+        Validate.notNull(unit, "Unit cannot be null");
+        Validate.isTrue(interval > 0, "Interval must be positive");
+        writeBehindTicks = Math.max(1, unit.toMillis(interval) / 50);
+        writeBehindPlugin = plugin;
+        if(dirty) setDirty();
+        return this;
+    }
+
+    /**
+     * Disables write-behind. Modifications which have not been written yet remain unsaved.
+     *
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile disableWriteBehind() {
+        writeBehindPlugin = null;
+        return this;
+    }
+
+    private void flushWriteBehind() {
+        writeBehindScheduled.set(false);
+        JavaPlugin owner = writeBehindPlugin;
+        if(owner == null || !dirty || configFile == null) return;
+        saveAsync().exceptionally(e -> {
+            owner.getLogger().log(Level.SEVERE, "Could not save " + configFile, e);
+            return this;
+        });
+    }
+
+    /**
+     * Registers a listener for changes of the values matching the pattern. The pattern is a path, in which {@code *}
+     * matches any single key. A listener is notified of changes at paths matching the pattern, below them and above
+     * them, so a listener for {@code arenas.*} is notified of changes to {@code arenas.castle.spawn} as well.
+     * <p>
+     * Listeners are notified by {@link #set(String, Object)}, {@link #createSection(String)} and after the file has
+     * been loaded or reloaded by a {@link ConfigurationWatcher}. On loads, the previous and new contents are compared,
+     * so listeners are only notified of the values that actually changed. Modifications reported with
+     * {@link #markDirty()} are not passed on to listeners.
+     *
+     * @param pattern The paths to listen to, using the current path separator. An empty pattern matches all paths.
+     * @param listener The listener.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile onChange(@NotNull String pattern, @NotNull ChangeListener listener) {
+        Validate.notNull(pattern, "Pattern cannot be null");
+        Validate.notNull(listener, "Listener cannot be null");
+        String[] segments = pattern.isEmpty() ? new String[0]
+                : pattern.split(Pattern.quote(String.valueOf(config.options().pathSeparator())), -1);
+        listeners.add(new Listener(segments, listener));
+        return this;
+    }
+
+    /**
+     * Removes all registrations of the given listener.
+     *
+     * @param listener The listener to remove.
+     * @return This ConfigurationFile.
+     */
+    @NotNull
+    public ConfigurationFile removeChangeListener(@NotNull ChangeListener listener) {
+        listeners.removeIf(registration -> registration.listener == listener);
+        return this;
+    }
+
+    /**
+     * Collects the values at and below the given path, or of the whole configuration if null, unless nobody listens
+     * to changes.
+     *
+     * @return The values by path without the sections, or null if there are no listeners.
+     */
+    @Nullable
+    private Map<String, Object> captureValues(@Nullable String path) {
+        if(listeners.isEmpty()) return null;
+        Map<String, Object> values = new HashMap<>();
+        collectValues(values, path, path == null ? config : config.get(path, null), config.options().pathSeparator());
+        return values;
+    }
+
+    private static void collectValues(@NotNull Map<String, Object> values, @Nullable String path, @Nullable Object value, char separator) {
+        if(value instanceof ConfigurationSection) {
+            for(Map.Entry<String, Object> entry : ((ConfigurationSection) value).getValues(false).entrySet()) {
+                collectValues(values, path == null ? entry.getKey() : path + separator + entry.getKey(), entry.getValue(), separator);
+            }
+        } else if(value != null) {
+            values.put(path, value);
+        }
+    }
+
+    /**
+     * Notifies the listeners of the differences between the values captured before and after a modification.
+     */
+    private void fireChanges(@Nullable Map<String, Object> before, @Nullable Map<String, Object> after) {
+        if(before == null || after == null) return;
+        for(Map.Entry<String, Object> entry : before.entrySet()) {
+            Object newValue = after.get(entry.getKey());
+            if(!entry.getValue().equals(newValue)) fireChange(entry.getKey(), entry.getValue(), newValue);
+        }
+        for(Map.Entry<String, Object> entry : after.entrySet()) {
+            if(!before.containsKey(entry.getKey())) fireChange(entry.getKey(), null, entry.getValue());
+        }
+    }
+
+    private void fireChange(@NotNull String path, @Nullable Object oldValue, @Nullable Object newValue) {
+        char separator = config.options().pathSeparator();
+        for(Listener registration : listeners) {
+            if(!registration.matches(path, separator)) continue;
+            try {
+                registration.listener.changed(path, oldValue, newValue);
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Change listener for " + path + " threw an exception", e);
+            }
+        }
+    }
+
+    private static final class Listener {
+
+        @NotNull
+        final String[] pattern;
+        @NotNull
+        final ChangeListener listener;
+
+        Listener(@NotNull String[] pattern, @NotNull ChangeListener listener) {
+            this.pattern = pattern;
+            this.listener = listener;
+        }
+
+        /**
+         * Checks whether the path and the pattern agree on all the keys they have in common.
+         */
+        boolean matches(@NotNull String path, char separator) {
+            int start = 0;
+            for(String key : pattern) {
+                if(start > path.length()) return true;
+                int end = path.indexOf(separator, start);
+                if(end == -1) end = path.length();
+                if(!key.equals("*") && (end - start != key.length() || !path.startsWith(key, start))) return false;
+                start = end + 1;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Checks whether setting a value would leave the configuration as it is. Values that are the same mutable
+     * instance might have been modified in place and are treated as changed.
+     */
+    private static boolean isUnchanged(@Nullable Object oldValue, @Nullable Object newValue) {
+        if(oldValue == null) return newValue == null;
+        if(!oldValue.equals(newValue)) return false;
+        return oldValue != newValue || newValue instanceof String || newValue instanceof Number
+                || newValue instanceof Boolean || newValue instanceof Character;
+    }
+
+    /**
+     * Binds an object built from the values of this configuration, usually an implementation generated for an
+     * interface annotated with {@link com.github.groomon.gslib.configuration.binding.ConfigBinding}. The object is
+     * built right away and rebuilt whenever this configuration is loaded or reloaded by a
+     * {@link ConfigurationWatcher}, on the thread doing so. Modifications through this wrapper only mark the object as
+     * outdated, it is rebuilt once by the next {@link ConfigurationBinding#get()} on the modifying thread. If the file
+     * has a plugin, set by {@link #setDefault(String, JavaPlugin)} or {@link #writeBehind(JavaPlugin, long, TimeUnit)},
+     * and is modified on the main thread, the object is also rebuilt on the next tick.
+     * <p>
+     * Modifications which bypass this wrapper have to be reported with {@link #markDirty()}.
+     *
+     * @param factory Builds the object from this configuration.
+     * @return The binding handing out the latest object.
+     */
+    @NotNull
+    public <T> ConfigurationBinding<T> bind(@NotNull Function<ConfigurationFile, ? extends T> factory) {
+        Validate.notNull(factory, "Factory cannot be null");
+        ConfigurationBinding<T> binding = new ConfigurationBinding<>(this, factory);
+        bindings.add(binding);
+        return binding;
+    }
+
+    void unbind(@NotNull ConfigurationBinding<?> binding) {
+        bindings.remove(binding);
+    }
+
+    /**
+     * Compiles a path into a handle which reads its value without splitting the path or walking the sections again,
+     * as long as this configuration is not modified in between.
+     *
+     * @param path The path to compile, using the current path separator.
+     * @return The compiled path.
+     */
+    @NotNull
+    public ConfigPath path(@NotNull String path) {
+        Validate.notNull(path, "Path cannot be null");
+        return new ConfigPath(this, path, config.options().pathSeparator());
+    }
+
     // delegated methods
 
     @NotNull
@@ -374,18 +1336,24 @@ public class ConfigurationFile {
 
     public void addDefault(@NotNull String path, @Nullable Object value) {
         config.addDefault(path, value);
+        invalidate(path);
+        // the defaults are not tracked by path, the next snapshot copies them again
+        snapshotChanges = null;
     }
 
     public void addDefaults(@NotNull Map<String, Object> defaults) {
         config.addDefaults(defaults);
+        invalidate(null);
     }
 
     public void addDefaults(@NotNull Configuration defaults) {
         config.addDefaults(defaults);
+        invalidate(null);
     }
 
     public void setDefaults(@NotNull Configuration defaults) {
         config.setDefaults(defaults);
+        invalidate(null);
     }
 
     @Nullable
@@ -440,8 +1408,30 @@ public class ConfigurationFile {
         return config.getDefaultSection();
     }
 
+    /**
+     * Sets the specified path to the given value. Setting a value equal to the current one does not mark the
+     * configuration as modified.
+     *
+     * @param path Path of the object to set.
+     * @param value New value to set the path to.
+     * @see ConfigurationSection#set(String, Object)
+     */
     public void set(@NotNull String path, @Nullable Object value) {
+        Object oldValue = config.get(path, null);
+        if(isUnchanged(oldValue, value)) return;
+        boolean structural = isStructural(oldValue) || isStructural(value);
+        Map<String, Object> before = structural ? captureValues(path) : null;
         config.set(path, value);
+        modified(path, structural);
+        if(structural) {
+            fireChanges(before, captureValues(path));
+        } else if(!listeners.isEmpty()) {
+            fireChange(path, oldValue, value);
+        }
+    }
+
+    private static boolean isStructural(@Nullable Object value) {
+        return value instanceof ConfigurationSection || value instanceof Map;
     }
 
     @Nullable
@@ -456,12 +1446,20 @@ public class ConfigurationFile {
 
     @NotNull
     public ConfigurationSection createSection(@NotNull String path) {
-        return config.createSection(path);
+        Map<String, Object> before = captureValues(path);
+        ConfigurationSection section = config.createSection(path);
+        modified(path);
+        fireChanges(before, captureValues(path));
+        return section;
     }
 
     @NotNull
     public ConfigurationSection createSection(@NotNull String path, @NotNull Map<?, ?> map) {
-        return config.createSection(path, map);
+        Map<String, Object> before = captureValues(path);
+        ConfigurationSection section = config.createSection(path, map);
+        modified(path);
+        fireChanges(before, captureValues(path));
+        return section;
     }
 
     @Nullable
@@ -541,53 +1539,173 @@ public class ConfigurationFile {
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<String> getStringList(@NotNull String path) {
-        return config.getStringList(path);
+        return (List<String>) getTyped(path, STRING_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Integer> getIntegerList(@NotNull String path) {
-        return config.getIntegerList(path);
+        return (List<Integer>) getTyped(path, INTEGER_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Boolean> getBooleanList(@NotNull String path) {
-        return config.getBooleanList(path);
+        return (List<Boolean>) getTyped(path, BOOLEAN_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Double> getDoubleList(@NotNull String path) {
-        return config.getDoubleList(path);
+        return (List<Double>) getTyped(path, DOUBLE_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Float> getFloatList(@NotNull String path) {
-        return config.getFloatList(path);
+        return (List<Float>) getTyped(path, FLOAT_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Long> getLongList(@NotNull String path) {
-        return config.getLongList(path);
+        return (List<Long>) getTyped(path, LONG_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Byte> getByteList(@NotNull String path) {
-        return config.getByteList(path);
+        return (List<Byte>) getTyped(path, BYTE_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Character> getCharacterList(@NotNull String path) {
-        return config.getCharacterList(path);
+        return (List<Character>) getTyped(path, CHARACTER_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Short> getShortList(@NotNull String path) {
-        return config.getShortList(path);
+        return (List<Short>) getTyped(path, SHORT_LIST);
     }
 
     @NotNull
+    @SuppressWarnings("unchecked")
     public List<Map<?, ?>> getMapList(@NotNull String path) {
-        return config.getMapList(path);
+        return (List<Map<?, ?>>) getTyped(path, MAP_LIST);
+    }
+
+    /**
+     * Gets the requested list of numbers as int array. Lists loaded from JSON or set with
+     * {@link #setIntArray(String, int[])} are copied without boxing their elements, other lists are converted like
+     * {@link #getIntegerList(String)} does.
+     *
+     * @param path Path of the list to get.
+     * @return A copy of the list, which is empty if the path does not point to a list.
+     */
+    @NotNull
+    public int[] getIntArray(@NotNull String path) {
+        Object value = config.get(path);
+        if(value instanceof IntArrayList && ((IntArrayList) value).isPacked()) return ((IntArrayList) value).toIntArray();
+        List<Integer> list = getIntegerList(path);
+        int[] result = new int[list.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the requested list of numbers as long array, see {@link #getIntArray(String)}.
+     *
+     * @param path Path of the list to get.
+     * @return A copy of the list, which is empty if the path does not point to a list.
+     */
+    @NotNull
+    public long[] getLongArray(@NotNull String path) {
+        Object value = config.get(path);
+        if(value instanceof LongArrayList && ((LongArrayList) value).isPacked()) return ((LongArrayList) value).toLongArray();
+        if(value instanceof IntArrayList && ((IntArrayList) value).isPacked()) {
+            IntArrayList ints = (IntArrayList) value;
+            long[] result = new long[ints.size()];
+            for(int i = 0; i < result.length; i++) {
+                result[i] = ints.getInt(i);
+            }
+            return result;
+        }
+        List<Long> list = getLongList(path);
+        long[] result = new long[list.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the requested list of numbers as double array, see {@link #getIntArray(String)}.
+     *
+     * @param path Path of the list to get.
+     * @return A copy of the list, which is empty if the path does not point to a list.
+     */
+    @NotNull
+    public double[] getDoubleArray(@NotNull String path) {
+        Object value = config.get(path);
+        if(value instanceof DoubleArrayList && ((DoubleArrayList) value).isPacked()) return ((DoubleArrayList) value).toDoubleArray();
+        if(value instanceof IntArrayList && ((IntArrayList) value).isPacked()) {
+            IntArrayList ints = (IntArrayList) value;
+            double[] result = new double[ints.size()];
+            for(int i = 0; i < result.length; i++) {
+                result[i] = ints.getInt(i);
+            }
+            return result;
+        }
+        if(value instanceof LongArrayList && ((LongArrayList) value).isPacked()) {
+            LongArrayList longs = (LongArrayList) value;
+            double[] result = new double[longs.size()];
+            for(int i = 0; i < result.length; i++) {
+                result[i] = longs.getLong(i);
+            }
+            return result;
+        }
+        List<Double> list = getDoubleList(path);
+        double[] result = new double[list.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the given path to a copy of the values, which is stored without boxing them.
+     *
+     * @param path Path of the list to set.
+     * @param values The values, or null to remove the path.
+     */
+    public void setIntArray(@NotNull String path, @Nullable int[] values) {
+        set(path, values == null ? null : new IntArrayList(values));
+    }
+
+    /**
+     * Sets the given path to a copy of the values, which is stored without boxing them.
+     *
+     * @param path Path of the list to set.
+     * @param values The values, or null to remove the path.
+     */
+    public void setLongArray(@NotNull String path, @Nullable long[] values) {
+        set(path, values == null ? null : new LongArrayList(values));
+    }
+
+    /**
+     * Sets the given path to a copy of the values, which is stored without boxing them.
+     *
+     * @param path Path of the list to set.
+     * @param values The values, or null to remove the path.
+     */
+    public void setDoubleArray(@NotNull String path, @Nullable double[] values) {
+        set(path, values == null ? null : new DoubleArrayList(values));
     }
 
     @Nullable
@@ -612,12 +1730,13 @@ public class ConfigurationFile {
 
     @Nullable
     public Vector getVector(@NotNull String path) {
-        return config.getVector(path);
+        return (Vector) getTyped(path, VECTOR);
     }
 
     @Nullable
     public Vector getVector(@NotNull String path, @Nullable Vector def) {
-        return config.getVector(path, def);
+        if(typedCache == null) return config.getVector(path, def);
+        return config.get(path, null) instanceof Vector ? (Vector) getTyped(path, VECTOR) : def;
     }
 
     public boolean isVector(@NotNull String path) {
@@ -0,0 +1,415 @@
+package com.github.groomon.gslib.configuration;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The I/O backend used by {@link ConfigurationFile} for asynchronous loading and saving.
+ * <p>
+ * Writes are coalesced per file: if several writes for the same file are queued while a previous one is still in
+ * flight, only the latest contents are written and all queued futures complete together.
+ * <p>
+ * Atomic writes go to a temporary file next to the target, which is forced to disk and then moved over the target.
+ * A crash during the write leaves the previous file untouched.
+ * <p>
+ * Files may be gzip compressed. Compressed files are recognized by their header when they are loaded, so files can be
+ * switched between both forms at any time.
+ */
+final class ConfigurationIO {
+
+    static final String BACKUP_SUFFIX = ".bak";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadFactory THREAD_FACTORY = runnable -> {
+        Thread thread = new Thread(runnable, "gslib-config-io-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), THREAD_FACTORY);
+
+    /**
+     * Parses files in parallel, one worker per core.
+     */
+    static final ForkJoinPool PARSER = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("gslib-config-parser-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    // guarded by itself
+    private static final Map<File, PendingWrite> PENDING = new HashMap<>();
+
+    private ConfigurationIO() {
+    }
+
+    /**
+     * Queues the given contents to be written to the file on the I/O executor.
+     *
+     * @param file The file to write to.
+     * @param contents The snapshot to write.
+     * @param mode How the file is written.
+     * @return A future completing once the given contents, or newer contents queued for the same file, are written.
+     */
+    @NotNull
+    static CompletableFuture<Void> write(@NotNull File file, @NotNull byte[] contents, @NotNull WriteMode mode) {
+        File key = file.getAbsoluteFile();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        PendingWrite scheduled = enqueue(key, contents, mode, future);
+        if(scheduled != null) {
+            EXECUTOR.execute(() -> drain(key, scheduled));
+        }
+        return future;
+    }
+
+    /**
+     * Queues the given contents to be written to their files by a single task on the I/O executor, instead of one
+     * task per file. Writes are coalesced with other writes of the same files as usual.
+     *
+     * @param contents The snapshots to write by their files.
+     * @param mode How the files are written.
+     * @return The futures completing once the contents of each file, or newer contents, are written.
+     */
+    @NotNull
+    static Map<File, CompletableFuture<Void>> writeAll(@NotNull Map<File, byte[]> contents, @NotNull WriteMode mode) {
+        Map<File, CompletableFuture<Void>> futures = new HashMap<>();
+        Map<File, PendingWrite> scheduled = new HashMap<>();
+        for(Map.Entry<File, byte[]> entry : contents.entrySet()) {
+            File key = entry.getKey().getAbsoluteFile();
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            PendingWrite pending = enqueue(key, entry.getValue(), mode, future);
+            if(pending != null) scheduled.put(key, pending);
+            futures.put(entry.getKey(), future);
+        }
+        if(!scheduled.isEmpty()) {
+            EXECUTOR.execute(() -> scheduled.forEach(ConfigurationIO::drain));
+        }
+        return futures;
+    }
+
+    /**
+     * Writes the given contents to the file on the calling thread, after any write of the same file which is already
+     * queued or in flight, so it cannot be overtaken by an earlier asynchronous write.
+     * <p>
+     * Queued writes of the file are taken over and written by the calling thread. It only waits if another thread is
+     * writing the file at the moment, which then writes these contents as well. As it never waits for a task queued on
+     * the {@link #EXECUTOR}, this may be called from the I/O threads.
+     *
+     * @param file The file to write to.
+     * @param contents The snapshot to write.
+     * @param mode How the file is written.
+     */
+    static void writeNow(@NotNull File file, @NotNull byte[] contents, @NotNull WriteMode mode) throws IOException {
+        File key = file.getAbsoluteFile();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        PendingWrite pending;
+        boolean claimed;
+        synchronized (PENDING) {
+            enqueue(key, contents, mode, future);
+            pending = PENDING.get(key);
+            claimed = !pending.running;
+            pending.running = true;
+        }
+        if(claimed) writePending(key, pending);
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the contents to the pending write of the file.
+     *
+     * @return The pending write if it is new and has to be drained, null if it is already scheduled.
+     */
+    @Nullable
+    private static PendingWrite enqueue(@NotNull File key, @NotNull byte[] contents, @NotNull WriteMode mode,
+                                        @NotNull CompletableFuture<Void> future) {
+        synchronized (PENDING) {
+            PendingWrite pending = PENDING.get(key);
+            boolean created = pending == null;
+            if(created) {
+                pending = new PendingWrite();
+                PENDING.put(key, pending);
+            }
+            pending.contents = contents;
+            pending.mode = mode;
+            pending.waiters.add(future);
+            return created ? pending : null;
+        }
+    }
+
+    private static void drain(@NotNull File file, @NotNull PendingWrite pending) {
+        synchronized (PENDING) {
+            // written by a synchronous save in the meantime
+            if(pending.running) return;
+            pending.running = true;
+        }
+        writePending(file, pending);
+    }
+
+    /**
+     * Writes the contents of a pending write until no newer contents have been queued. The calling thread must have
+     * claimed the pending write by setting {@link PendingWrite#running}.
+     */
+    private static void writePending(@NotNull File file, @NotNull PendingWrite pending) {
+        while(true) {
+            byte[] contents;
+            WriteMode mode;
+            List<CompletableFuture<Void>> waiters;
+            synchronized (PENDING) {
+                contents = pending.contents;
+                mode = pending.mode;
+                waiters = pending.waiters;
+                if(contents == null) {
+                    // a newer pending write of the file is drained by the task which scheduled it
+                    PENDING.remove(file, pending);
+                    return;
+                }
+                pending.contents = null;
+                pending.waiters = new ArrayList<>();
+            }
+            try {
+                write(file, out -> out.write(contents), mode);
+                waiters.forEach(waiter -> waiter.complete(null));
+            } catch (IOException | RuntimeException e) {
+                waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Writes to the file on the calling thread, creating parent directories as needed.
+     *
+     * @param file The file to write to.
+     * @param output Writes the contents to the stream it is given.
+     * @param mode How the file is written.
+     */
+    static void write(@NotNull File file, @NotNull Output output, @NotNull WriteMode mode) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path directory = target.getParent();
+        if(directory != null) Files.createDirectories(directory);
+        if(mode == WriteMode.DIRECT) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+                output.writeTo(out);
+            }
+            return;
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            // not created by Files.createTempFile, which would make the file readable by its owner only
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                copyPermissions(target, temp);
+                // the stream is not closed, closing it would close the channel before it is forced
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                output.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            if(mode == WriteMode.ATOMIC_WITH_BACKUP && Files.exists(target)) {
+                keepBackup(target, target.resolveSibling(target.getFileName() + BACKUP_SUFFIX));
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if(directory != null) forceDirectory(directory);
+    }
+
+    /**
+     * Gives the new file the permissions of the file it replaces, if there is one and the file system has POSIX
+     * permissions.
+     */
+    private static void copyPermissions(@NotNull Path target, @NotNull Path temp) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if(view == null || !Files.exists(target)) return;
+        Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+    }
+
+    /**
+     * Keeps the current generation of the target as backup. A hard link is used where possible, which keeps the old
+     * contents without copying them, as the target is replaced by a new file afterwards.
+     */
+    private static void keepBackup(@NotNull Path target, @NotNull Path backup) throws IOException {
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the directory entry of a moved file to disk. Not all platforms allow opening directories, so this is
+     * done on a best effort basis.
+     */
+    private static void forceDirectory(@NotNull Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // not supported on this platform
+        }
+    }
+
+    /**
+     * Loads a file into a configuration, decompressing it if it is gzip compressed.
+     *
+     * @param config The configuration to load the file into.
+     * @param file The file to load.
+     */
+    static void load(@NotNull FileConfiguration config, @NotNull File file) throws IOException, InvalidConfigurationException {
+        try (InputStream raw = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            InputStream in = isCompressed(raw) ? new GZIPInputStream(raw, BUFFER_SIZE) : raw;
+            if(config instanceof StreamingConfiguration) {
+                ((StreamingConfiguration) config).load(in);
+            } else {
+                config.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Checks whether a stream starts with the gzip header, without consuming it.
+     */
+    private static boolean isCompressed(@NotNull InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == GZIPInputStream.GZIP_MAGIC >>> 8;
+    }
+
+    /**
+     * Wraps an output so it writes gzip compressed contents. The contents are compressed as they are written.
+     */
+    @NotNull
+    static Output compressed(@NotNull Output output) {
+        return out -> {
+            // closing the compressor releases its native memory, the target is left open
+            try (GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE)) {
+                output.writeTo(gzip);
+            }
+        };
+    }
+
+    @NotNull
+    static byte[] encode(@NotNull String contents) {
+        return contents.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Waits until no more writes are queued or in flight.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return Whether all queued writes have completed in time.
+     */
+    static boolean awaitPendingWrites(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while(true) {
+            synchronized (PENDING) {
+                if(PENDING.isEmpty()) return true;
+            }
+            if(System.nanoTime() >= deadline) return false;
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Writes the contents of a file to the given stream.
+     */
+    @FunctionalInterface
+    interface Output {
+
+        void writeTo(@NotNull OutputStream out) throws IOException;
+    }
+
+    enum WriteMode {
+        /**
+         * Truncates and rewrites the file in place.
+         */
+        DIRECT,
+        /**
+         * Writes a temporary file and moves it over the target.
+         */
+        ATOMIC,
+        /**
+         * Like {@link #ATOMIC}, but keeps the previous generation of the file with the {@link #BACKUP_SUFFIX}.
+         */
+        ATOMIC_WITH_BACKUP
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(@NotNull OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static final class PendingWrite {
+        byte[] contents;
+        WriteMode mode;
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        // whether a thread is writing the contents, guarded by PENDING
+        boolean running;
+    }
+}
@@ -0,0 +1,283 @@
+package com.github.groomon.gslib.configuration;
+
+import com.github.groomon.gslib.configuration.json.JsonReader;
+import com.github.groomon.gslib.configuration.json.JsonWriter;
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The change log of a {@link ConfigurationFile} in journal mode.
+ * <p>
+ * Instead of rewriting the whole file, a save appends one JSON line per modified path to {@code <name>.journal},
+ * holding the path and its new value: {@code {"p":"arenas.castle.spawn","v":...}}. Removed values are recorded as
+ * null and sections as maps. Loading the file replays the journal on top of it, dropping a last line which has been
+ * cut off by a crash.
+ * <p>
+ * Once the journal has grown past its threshold, it is compacted: it is renamed to {@code <name>.journal.1} and the
+ * whole configuration is written as a new snapshot in the background, after which the renamed journal is deleted.
+ * Records appended in the meantime go to a new journal, which is renamed to {@code <name>.journal.2} and so on if
+ * another snapshot is started before the first one has completed. Should the renamed journals survive a crash,
+ * replaying them on the new snapshot does no harm, as they only repeat values the snapshot already contains.
+ */
+final class ConfigurationJournal {
+
+    static final String SUFFIX = ".journal";
+    // followed by the number of the rotated journal, starting at 1
+    static final String ROTATED_SUFFIX = ".journal.";
+
+    private static final Logger LOG = Logger.getLogger(ConfigurationJournal.class.getName());
+
+    private static final String PATH_KEY = "p";
+    private static final String VALUE_KEY = "v";
+
+    // the journal size above which it is compacted, or 0 if journal mode is disabled
+    private long threshold;
+    // whether appended records are forced to the disk before a save completes
+    private volatile boolean sync = true;
+    // paths modified since the last save, ordered by their last modification, or null if a snapshot has to be written
+    private volatile LinkedHashSet<String> changes;
+    // snapshots which have been started but not completed, guarded by this
+    private int pendingSnapshots;
+
+    boolean isEnabled() {
+        return threshold > 0;
+    }
+
+    /**
+     * Enables journal mode. The next save writes a snapshot, unless the file is loaded before.
+     */
+    void enable(long threshold) {
+        this.threshold = threshold;
+        changes = null;
+    }
+
+    void disable() {
+        threshold = 0;
+        changes = null;
+    }
+
+    void sync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Records a modification of the value at the given path, or of the whole configuration if null.
+     */
+    void changed(@Nullable String path) {
+        LinkedHashSet<String> current = changes;
+        if(threshold == 0 || current == null) return;
+        if(path == null) {
+            changes = null;
+            return;
+        }
+        // moved to the end, the values are written in the order of their last modification
+        current.remove(path);
+        current.add(path);
+    }
+
+    /**
+     * Called once the configuration matches the file and its journal again.
+     */
+    void reset() {
+        changes = threshold == 0 ? null : new LinkedHashSet<>();
+    }
+
+    /**
+     * Checks whether the modifications can be appended to the journal instead of writing a snapshot.
+     */
+    boolean canAppend(@NotNull File file) {
+        return threshold > 0 && changes != null && file.exists();
+    }
+
+    /**
+     * Appends the current values of the modified paths to the journal.
+     *
+     * @return Whether the journal should be compacted now.
+     */
+    boolean append(@NotNull File file, @NotNull ConfigurationSection config) throws IOException {
+        LinkedHashSet<String> current = changes;
+        if(current == null) throw new IllegalStateException("Modifications have not been tracked");
+        if(current.isEmpty()) return false;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+        for(String path : current) {
+            JsonWriter json = new JsonWriter(writer);
+            json.beginMap(2);
+            json.key(PATH_KEY);
+            json.value(path);
+            json.key(VALUE_KEY);
+            SerializationHelper.serialize(config.get(path, null), json);
+            json.endMap();
+            writer.write('\n');
+        }
+        writer.flush();
+
+        Path journal = journalFile(file, SUFFIX);
+        synchronized (this) {
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer records = ByteBuffer.wrap(buffer.toByteArray());
+                while(records.hasRemaining()) {
+                    channel.write(records);
+                }
+                if(sync) channel.force(false);
+            } catch (IOException e) {
+                // the journal might end with a partial record now, which has to be replaced by a snapshot
+                changes = null;
+                throw e;
+            }
+            current.clear();
+            return pendingSnapshots == 0 && Files.size(journal) > threshold;
+        }
+    }
+
+    /**
+     * Called before a snapshot of the whole configuration is written. Moves the journal out of the way, so records
+     * appended while the snapshot is written are kept apart from the records it replaces. If an earlier snapshot is
+     * still being written, the journal is renamed after the journals rotated for it, so the journal is never copied.
+     */
+    void beginSnapshot(@NotNull File file) throws IOException {
+        Path journal = journalFile(file, SUFFIX);
+        synchronized (this) {
+            if(Files.exists(journal)) {
+                Path rotated = journalFile(file, ROTATED_SUFFIX + (rotatedJournals(file).size() + 1));
+                try {
+                    Files.move(journal, rotated, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(journal, rotated);
+                }
+            }
+            pendingSnapshots++;
+        }
+        reset();
+    }
+
+    /**
+     * Called once a snapshot started with {@link #beginSnapshot(File)} has been written or has failed. Can be called
+     * from any thread.
+     */
+    void endSnapshot(@NotNull File file, boolean written) {
+        if(!written) {
+            // modifications which have not been tracked would get lost otherwise
+            changes = null;
+        }
+        synchronized (this) {
+            pendingSnapshots--;
+            // only the latest snapshot replaces all the rotated records
+            if(!written || pendingSnapshots > 0) return;
+            try {
+                List<Path> rotated = rotatedJournals(file);
+                // newest first, so the remaining journals stay numbered from 1 if deleting one fails
+                for(int i = rotated.size() - 1; i >= 0; i--) {
+                    Files.delete(rotated.get(i));
+                }
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not delete the rotated journal of " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Replays the journals of the file onto the configuration loaded from it.
+     *
+     * @return Whether there was a journal.
+     */
+    static boolean replay(@NotNull File file, @NotNull ConfigurationSection config) throws IOException, InvalidConfigurationException {
+        boolean replayed = false;
+        for(Path rotated : rotatedJournals(file)) {
+            replayed |= replay(rotated, config);
+        }
+        return replay(journalFile(file, SUFFIX), config) || replayed;
+    }
+
+    /**
+     * Lists the rotated journals of the file, oldest first.
+     */
+    @NotNull
+    private static List<Path> rotatedJournals(@NotNull File file) {
+        List<Path> rotated = new ArrayList<>();
+        for(int i = 1; ; i++) {
+            Path journal = journalFile(file, ROTATED_SUFFIX + i);
+            if(!Files.exists(journal)) return rotated;
+            rotated.add(journal);
+        }
+    }
+
+    private static boolean replay(@NotNull Path journal, @NotNull ConfigurationSection config) throws IOException, InvalidConfigurationException {
+        if(!Files.exists(journal)) return false;
+        byte[] contents = Files.readAllBytes(journal);
+        int start = 0;
+        for(int end = indexOf(contents, '\n', start); end != -1; end = indexOf(contents, '\n', start)) {
+            String line = new String(contents, start, end - start, StandardCharsets.UTF_8);
+            if(!line.trim().isEmpty()) apply(line, config, journal);
+            start = end + 1;
+        }
+        if(start < contents.length) {
+            LOG.warning("Ignoring an incomplete record at the end of " + journal);
+            // cut off, so records appended later do not end up on the same line
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+            }
+        }
+        return true;
+    }
+
+    private static void apply(@NotNull String line, @NotNull ConfigurationSection config, @NotNull Path journal)
+            throws InvalidConfigurationException {
+        Object record;
+        try {
+            record = new JsonReader(new StringReader(line)).readValue();
+        } catch (IOException e) {
+            // a StringReader does not throw
+            throw new InvalidConfigurationException(e);
+        }
+        if(!(record instanceof Map) || !(((Map<?, ?>) record).get(PATH_KEY) instanceof String)) {
+            throw new InvalidConfigurationException("Invalid record in " + journal + ": " + line);
+        }
+        Map<?, ?> map = (Map<?, ?>) record;
+        String path = (String) map.get(PATH_KEY);
+        Object value = map.get(VALUE_KEY);
+        if(value instanceof Map) {
+            config.createSection(path, (Map<?, ?>) value);
+        } else {
+            config.set(path, value);
+        }
+    }
+
+    private static int indexOf(@NotNull byte[] bytes, char c, int from) {
+        for(int i = from; i < bytes.length; i++) {
+            if(bytes[i] == c) return i;
+        }
+        return -1;
+    }
+
+    @NotNull
+    private static Path journalFile(@NotNull File file, @NotNull String suffix) {
+        Path path = file.toPath().toAbsolutePath();
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+}
@@ -0,0 +1,564 @@
+package com.github.groomon.gslib.configuration;
+
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import com.github.groomon.gslib.locations.ImmutableVector;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable copy of a configuration section, which can be read from any thread without synchronization.
+ * <p>
+ * Values are frozen when the snapshot is taken: sections become nested snapshots, lists and maps become unmodifiable
+ * copies and vectors become {@link ImmutableVector}s. {@link Location}s, {@link ItemStack}s and other
+ * {@link ConfigurationSerializable}s cannot be frozen, so a fresh copy of them, and of the lists and maps holding
+ * them, is returned on every read.
+ * <p>
+ * Snapshots of the same {@link ConfigurationFile} share all sections that were not modified in between, so taking a
+ * new snapshot after a few changes only copies the sections on the paths to the changed values.
+ *
+ * @see ConfigurationFile#snapshot()
+ */
+public final class ConfigurationSnapshot {
+
+    @NotNull
+    private final Map<String, Object> values;
+    @Nullable
+    private final ConfigurationSnapshot defaults;
+    private final char separator;
+
+    private ConfigurationSnapshot(@NotNull Map<String, Object> values, @Nullable ConfigurationSnapshot defaults, char separator) {
+        this.values = values;
+        this.defaults = defaults;
+        this.separator = separator;
+    }
+
+    /**
+     * Copies the whole section.
+     *
+     * @param section The section to copy.
+     * @param defaults The snapshot of the defaults of the section, if it has any.
+     * @param separator The path separator.
+     */
+    @NotNull
+    static ConfigurationSnapshot of(@NotNull ConfigurationSection section, @Nullable ConfigurationSnapshot defaults, char separator) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for(String key : section.getKeys(false)) {
+            Object value = section.get(key, null);
+            if(value != null) values.put(key, freeze(value, defaults == null ? null : defaults.getChild(key), separator));
+        }
+        return new ConfigurationSnapshot(values, defaults, separator);
+    }
+
+    /**
+     * Creates a copy of this snapshot with the given paths updated from the section. Sections which do not contain
+     * any of the paths are shared with this snapshot.
+     *
+     * @param section The section this snapshot was taken from.
+     * @param changed The changed paths, relative to the section.
+     */
+    @NotNull
+    ConfigurationSnapshot update(@NotNull ConfigurationSection section, @NotNull Collection<String> changed) {
+        // the changed paths below each key, or null if the key itself has changed
+        Map<String, List<String>> byKey = new HashMap<>();
+        for(String path : changed) {
+            int index = path.indexOf(separator);
+            String key = index == -1 ? path : path.substring(0, index);
+            if(index == -1) {
+                byKey.put(key, null);
+            } else if(!byKey.containsKey(key) || byKey.get(key) != null) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(path.substring(index + 1));
+            }
+        }
+
+        Map<String, Object> updated = new LinkedHashMap<>(values);
+        for(Map.Entry<String, List<String>> entry : byKey.entrySet()) {
+            String key = entry.getKey();
+            Object value = section.get(key, null);
+            Object old = values.get(key);
+            if(value == null) {
+                updated.remove(key);
+            } else if(entry.getValue() != null && value instanceof ConfigurationSection && old instanceof ConfigurationSnapshot) {
+                updated.put(key, ((ConfigurationSnapshot) old).update((ConfigurationSection) value, entry.getValue()));
+            } else {
+                updated.put(key, freeze(value, defaults == null ? null : defaults.getChild(key), separator));
+            }
+        }
+        return new ConfigurationSnapshot(updated, defaults, separator);
+    }
+
+    @Nullable
+    private ConfigurationSnapshot getChild(@NotNull String key) {
+        Object value = values.get(key);
+        return value instanceof ConfigurationSnapshot ? (ConfigurationSnapshot) value : null;
+    }
+
+    /**
+     * Gets the keys of this section, including the keys of its defaults.
+     *
+     * @param deep Whether to include the keys of all nested sections, as paths.
+     * @return An unmodifiable set of the keys.
+     */
+    @NotNull
+    public Set<String> getKeys(boolean deep) {
+        Set<String> keys = new LinkedHashSet<>();
+        if(defaults != null) keys.addAll(defaults.getKeys(deep));
+        collectKeys(keys, "", deep);
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private void collectKeys(@NotNull Set<String> keys, @NotNull String prefix, boolean deep) {
+        for(Map.Entry<String, Object> entry : values.entrySet()) {
+            String path = prefix + entry.getKey();
+            keys.add(path);
+            if(deep && entry.getValue() instanceof ConfigurationSnapshot) {
+                ((ConfigurationSnapshot) entry.getValue()).collectKeys(keys, path + separator, true);
+            }
+        }
+    }
+
+    /**
+     * Gets the values of this section, including the values of its defaults.
+     *
+     * @param deep Whether to include the values of all nested sections, by their paths.
+     * @return An unmodifiable map of the values.
+     */
+    @NotNull
+    public Map<String, Object> getValues(boolean deep) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if(defaults != null) result.putAll(defaults.getValues(deep));
+        collectValues(result, "", deep);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void collectValues(@NotNull Map<String, Object> result, @NotNull String prefix, boolean deep) {
+        for(Map.Entry<String, Object> entry : values.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object value = entry.getValue();
+            result.put(path, thaw(value));
+            if(deep && value instanceof ConfigurationSnapshot) {
+                ((ConfigurationSnapshot) value).collectValues(result, path + separator, true);
+            }
+        }
+    }
+
+    public boolean contains(@NotNull String path) {
+        return get(path) != null;
+    }
+
+    /**
+     * Checks whether the path has a value which is not only a default.
+     */
+    public boolean isSet(@NotNull String path) {
+        return find(path) != null;
+    }
+
+    /**
+     * Gets the value at the given path, falling back to the defaults if it is not set.
+     *
+     * @param path The path of the value.
+     * @return The value, or null if there is none.
+     */
+    @Nullable
+    public Object get(@NotNull String path) {
+        Object value = find(path);
+        if(value == null && defaults != null) return defaults.get(path);
+        return thaw(value);
+    }
+
+    /**
+     * Gets the value at the given path, without falling back to the defaults.
+     *
+     * @param path The path of the value.
+     * @param def The value returned if the path is not set.
+     * @return The value.
+     */
+    @Nullable
+    public Object get(@NotNull String path, @Nullable Object def) {
+        Object value = find(path);
+        return value == null ? def : thaw(value);
+    }
+
+    @Nullable
+    private Object find(@NotNull String path) {
+        Validate.notNull(path, "Path cannot be null");
+        if(path.isEmpty()) return this;
+        ConfigurationSnapshot section = this;
+        int start = 0;
+        for(int index = path.indexOf(separator); index != -1; index = path.indexOf(separator, start)) {
+            Object child = section.values.get(path.substring(start, index));
+            if(!(child instanceof ConfigurationSnapshot)) return null;
+            section = (ConfigurationSnapshot) child;
+            start = index + 1;
+        }
+        return section.values.get(path.substring(start));
+    }
+
+    @Nullable
+    public String getString(@NotNull String path) {
+        Object value = get(path);
+        return value == null ? null : value.toString();
+    }
+
+    @Nullable
+    public String getString(@NotNull String path, @Nullable String def) {
+        Object value = get(path, def);
+        return value == null ? null : value.toString();
+    }
+
+    public int getInt(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    public int getInt(@NotNull String path, int def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    public long getLong(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public long getLong(@NotNull String path, long def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+
+    public double getDouble(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    public double getDouble(@NotNull String path, double def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    public boolean getBoolean(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        Object value = get(path, def);
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+
+    /**
+     * @return An unmodifiable list, or null if the path does not point to a list.
+     */
+    @Nullable
+    public List<?> getList(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof List ? (List<?>) value : null;
+    }
+
+    @Nullable
+    public Vector getVector(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Vector ? (Vector) value : null;
+    }
+
+    @Nullable
+    public ConfigurationSnapshot getConfigurationSection(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof ConfigurationSnapshot ? (ConfigurationSnapshot) value : null;
+    }
+
+    @Nullable
+    public <T> T getObject(@NotNull String path, @NotNull Class<T> type) {
+        Validate.notNull(type, "Type cannot be null");
+        Object value = get(path);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    /**
+     * Converts a value into a form which cannot be modified.
+     */
+    @Nullable
+    private static Object freeze(@Nullable Object value, @Nullable ConfigurationSnapshot defaults, char separator) {
+        if(value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum) {
+            return value;
+        }
+        if(value instanceof ConfigurationSection) {
+            return of((ConfigurationSection) value, defaults, separator);
+        }
+        if(value instanceof FrozenIntList || value instanceof FrozenLongList || value instanceof FrozenDoubleList) {
+            return value;
+        }
+        if(value instanceof Vector) {
+            return value instanceof ImmutableVector ? value : new ImmutableVector((Vector) value);
+        }
+        if(value instanceof IntArrayList && ((IntArrayList) value).isPacked()) {
+            return new FrozenIntList(((IntArrayList) value).toIntArray());
+        }
+        if(value instanceof LongArrayList && ((LongArrayList) value).isPacked()) {
+            return new FrozenLongList(((LongArrayList) value).toLongArray());
+        }
+        if(value instanceof DoubleArrayList && ((DoubleArrayList) value).isPacked()) {
+            return new FrozenDoubleList(((DoubleArrayList) value).toDoubleArray());
+        }
+        if(value instanceof Location) {
+            return ((Location) value).clone();
+        }
+        if(value instanceof ItemStack) {
+            return ((ItemStack) value).clone();
+        }
+        // before collections and maps, so serializable sets such as SerializableSet keep their type
+        if(value instanceof ConfigurationSerializable) {
+            return new Serialized((ConfigurationSerializable) value);
+        }
+        if(value instanceof Collection) {
+            List<Object> list = new ArrayList<>(((Collection<?>) value).size());
+            boolean thawed = false;
+            for(Object element : (Collection<?>) value) {
+                Object frozen = freeze(element, null, separator);
+                thawed |= isThawed(frozen);
+                list.add(frozen);
+            }
+            Object frozen = value instanceof Set ? Collections.unmodifiableSet(new LinkedHashSet<>(list)) : Collections.unmodifiableList(list);
+            return thawed ? new Nested(frozen) : frozen;
+        }
+        if(value instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            boolean thawed = false;
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object frozen = freeze(entry.getValue(), null, separator);
+                thawed |= isThawed(frozen);
+                map.put(entry.getKey(), frozen);
+            }
+            Map<Object, Object> frozen = Collections.unmodifiableMap(map);
+            return thawed ? new Nested(frozen) : frozen;
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether a frozen value has to be copied or deserialized on every read.
+     */
+    private static boolean isThawed(@Nullable Object frozen) {
+        return frozen instanceof Location || frozen instanceof ItemStack || frozen instanceof Serialized || frozen instanceof Nested;
+    }
+
+    /**
+     * Converts a frozen value into the form handed out to readers.
+     */
+    @Nullable
+    private static Object thaw(@Nullable Object value) {
+        if(value instanceof Location) return ((Location) value).clone();
+        if(value instanceof ItemStack) return ((ItemStack) value).clone();
+        if(value instanceof Serialized) return ((Serialized) value).deserialize();
+        if(value instanceof Nested) return ((Nested) value).thaw();
+        return value;
+    }
+
+    /**
+     * Primitive lists which cannot be modified. They are still primitive lists, so they can be read without boxing.
+     */
+    private static final class FrozenIntList extends IntArrayList {
+
+        FrozenIntList(@NotNull int[] values) {
+            super(values);
+        }
+
+        @Override
+        public int setInt(int index, int value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addInt(int value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addInt(int index, int value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public int removeInt(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object remove(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+    }
+
+    private static final class FrozenLongList extends LongArrayList {
+
+        FrozenLongList(@NotNull long[] values) {
+            super(values);
+        }
+
+        @Override
+        public long setLong(int index, long value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addLong(long value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addLong(int index, long value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public long removeLong(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object remove(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+    }
+
+    private static final class FrozenDoubleList extends DoubleArrayList {
+
+        FrozenDoubleList(@NotNull double[] values) {
+            super(values);
+        }
+
+        @Override
+        public double setDouble(int index, double value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addDouble(double value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void addDouble(int index, double value) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public double removeDouble(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public Object remove(int index) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Cannot modify a snapshot");
+        }
+    }
+
+    /**
+     * An unmodifiable list, set or map holding values which have to be thawed, so it is copied on every read.
+     */
+    private static final class Nested {
+
+        @NotNull
+        private final Object frozen;
+
+        Nested(@NotNull Object frozen) {
+            this.frozen = frozen;
+        }
+
+        @NotNull
+        Object thaw() {
+            if(frozen instanceof Map) {
+                Map<Object, Object> map = new LinkedHashMap<>();
+                ((Map<?, ?>) frozen).forEach((key, value) -> map.put(key, ConfigurationSnapshot.thaw(value)));
+                return Collections.unmodifiableMap(map);
+            }
+            List<Object> list = new ArrayList<>(((Collection<?>) frozen).size());
+            for(Object element : (Collection<?>) frozen) {
+                list.add(ConfigurationSnapshot.thaw(element));
+            }
+            return frozen instanceof Set ? Collections.unmodifiableSet(new LinkedHashSet<>(list)) : Collections.unmodifiableList(list);
+        }
+    }
+
+    /**
+     * A serializable object kept in its serialized form, which is deserialized again on every read.
+     */
+    private static final class Serialized {
+
+        @NotNull
+        private final Map<String, Object> values;
+
+        Serialized(@NotNull ConfigurationSerializable value) {
+            Map<String, Object> serialized = new LinkedHashMap<>(value.serialize());
+            serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, SerializationHelper.getAlias(value.getClass()));
+            values = Collections.unmodifiableMap(serialized);
+        }
+
+        @Nullable
+        ConfigurationSerializable deserialize() {
+            return (ConfigurationSerializable) SerializationHelper.deserializeObject(values);
+        }
+    }
+}
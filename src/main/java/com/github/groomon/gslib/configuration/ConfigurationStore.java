@@ -0,0 +1,390 @@
+package com.github.groomon.gslib.configuration;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * A directory of {@link ConfigurationFile}s, one per key, such as a file for each player.
+ * <p>
+ * Files are spread over 256 subdirectories by the hash of their name, so no single directory grows too large. Loaded
+ * files are kept in a cache holding at most {@link #maximumSize(int)} files, and optionally at most
+ * {@link #maximumWeight(long)} bytes of them, from which the least recently used ones are evicted. Evicted files with unsaved modifications are written back in batches on the I/O executor, and are
+ * handed out again if they are requested before the write has completed.
+ * <p>
+ * Files are loaded asynchronously. Concurrent requests for the same key share one load, and the loaded file is added
+ * to the cache on the main thread. A store, like the files it hands out, must only be used from the main thread, and
+ * files should not be kept after they might have been evicted.
+ *
+ * @param <K> The type of the keys.
+ */
+public class ConfigurationStore<K> implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 64;
+
+    @NotNull
+    private final JavaPlugin plugin;
+    @NotNull
+    private final File directory;
+    @NotNull
+    private final String extension;
+    @NotNull
+    private final Supplier<FileConfiguration> factory;
+    @NotNull
+    private Function<K, String> naming = String::valueOf;
+    @Nullable
+    private Consumer<ConfigurationFile> setup;
+    @Nullable
+    private String defaultResource;
+    private int maximumSize = 1000;
+    private long maximumWeight = Long.MAX_VALUE;
+
+    private final LinkedHashMap<K, ConfigurationFile> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // the weights of the cached files when they were last handed out, and their sum
+    private final Map<K, Long> weights = new HashMap<>();
+    private long weight;
+    private final Map<K, CompletableFuture<ConfigurationFile>> loading = new HashMap<>();
+    // evicted files which have not been written yet
+    private final Map<K, ConfigurationFile> evicted = new HashMap<>();
+    private final Map<K, ConfigurationFile> batch = new LinkedHashMap<>();
+    private boolean batchScheduled;
+    private boolean closed;
+
+    /**
+     * @param plugin The plugin used to schedule tasks on the main thread.
+     * @param directory The directory containing the files.
+     * @param extension The extension of the files, such as {@code .json}.
+     * @param factory Creates the {@link FileConfiguration} implementation for each file.
+     */
+    public ConfigurationStore(@NotNull JavaPlugin plugin, @NotNull File directory, @NotNull String extension,
+                              @NotNull Supplier<FileConfiguration> factory) {
+        Validate.notNull(plugin, "Plugin cannot be null");
+        Validate.notNull(directory, "Directory cannot be null");
+        Validate.notNull(extension, "Extension cannot be null");
+        Validate.notNull(factory, "Factory cannot be null");
+        this.plugin = plugin;
+        this.directory = directory;
+        this.extension = extension;
+        this.factory = factory;
+    }
+
+    /**
+     * Sets the maximum number of loaded files. It should be well above the number of files in use at the same time.
+     *
+     * @param size The maximum number of files.
+     * @return This ConfigurationStore.
+     */
+    @NotNull
+    public ConfigurationStore<K> maximumSize(int size) {
+        Validate.isTrue(size > 0, "Size must be positive");
+        maximumSize = size;
+        evictOverflow();
+        return this;
+    }
+
+    /**
+     * Sets the maximum total weight of the loaded files, in addition to their number, so a few large files take the
+     * place of many small ones. The weight of a file is its size on disk when it was last loaded or saved, which is
+     * updated whenever the file is handed out. The most recently used file is kept even if it is heavier on its own.
+     *
+     * @param bytes The maximum weight, in bytes.
+     * @return This ConfigurationStore.
+     */
+    @NotNull
+    public ConfigurationStore<K> maximumWeight(long bytes) {
+        Validate.isTrue(bytes > 0, "Weight must be positive");
+        maximumWeight = bytes;
+        evictOverflow();
+        return this;
+    }
+
+    /**
+     * Sets how the file names are derived from the keys. By default {@link String#valueOf(Object)} is used.
+     *
+     * @param naming Gets the file name, without extension, of a key.
+     * @return This ConfigurationStore.
+     */
+    @NotNull
+    public ConfigurationStore<K> naming(@NotNull Function<K, String> naming) {
+        Validate.notNull(naming, "Naming cannot be null");
+        this.naming = naming;
+        return this;
+    }
+
+    /**
+     * Sets a default resource, which is loaded for keys that do not have a file yet.
+     *
+     * @param resource The path of the resource in the plugin.
+     * @return This ConfigurationStore.
+     * @see ConfigurationFile#setDefault(String, JavaPlugin)
+     */
+    @NotNull
+    public ConfigurationStore<K> defaults(@Nullable String resource) {
+        defaultResource = resource;
+        return this;
+    }
+
+    /**
+     * Sets a callback configuring each file before it is loaded, for example to enable
+     * {@link ConfigurationFile#keepBackup(boolean)}.
+     *
+     * @param setup The callback.
+     * @return This ConfigurationStore.
+     */
+    @NotNull
+    public ConfigurationStore<K> setup(@Nullable Consumer<ConfigurationFile> setup) {
+        this.setup = setup;
+        return this;
+    }
+
+    /**
+     * Gets the file a key is stored in.
+     *
+     * @param key The key.
+     * @return The file, which might not exist yet.
+     */
+    @NotNull
+    public File getFile(@NotNull K key) {
+        Validate.notNull(key, "Key cannot be null");
+        String name = naming.apply(key);
+        int hash = name.hashCode();
+        hash ^= hash >>> 16;
+        String shard = Character.forDigit((hash >>> 4) & 0xf, 16) + "" + Character.forDigit(hash & 0xf, 16);
+        return new File(new File(directory, shard), name + extension);
+    }
+
+    /**
+     * Gets the file of a key, loading it asynchronously if it is not loaded yet. A file that does not exist is
+     * loaded from the default resource, if one has been set, or is empty otherwise.
+     *
+     * @param key The key.
+     * @return A future completing on the main thread once the file has been loaded.
+     */
+    @NotNull
+    public CompletableFuture<ConfigurationFile> get(@NotNull K key) {
+        Validate.notNull(key, "Key cannot be null");
+        if(closed) throw new IllegalStateException("Store has been closed");
+        ConfigurationFile file = getIfLoaded(key);
+        if(file != null) return CompletableFuture.completedFuture(file);
+        CompletableFuture<ConfigurationFile> pending = loading.get(key);
+        if(pending != null) return pending;
+
+        ConfigurationFile created = create(key);
+        CompletableFuture<ConfigurationFile> result = new CompletableFuture<>();
+        loading.put(key, result);
+        created.loadAsync().whenComplete((loaded, e) -> runSync(() -> {
+            loading.remove(key);
+            if(e != null) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if(!closed) insert(key, created);
+            result.complete(created);
+        }));
+        return result;
+    }
+
+    /**
+     * Gets the file of a key if it is loaded.
+     *
+     * @param key The key.
+     * @return The file, or null if it is not loaded.
+     */
+    @Nullable
+    public ConfigurationFile getIfLoaded(@NotNull K key) {
+        ConfigurationFile file = cache.get(key);
+        if(file != null) {
+            // it might have been saved with a different size since it was handed out last
+            weigh(key, file);
+            return file;
+        }
+        file = evicted.remove(key);
+        if(file != null) {
+            batch.remove(key);
+            insert(key, file);
+        }
+        return file;
+    }
+
+    public boolean isLoaded(@NotNull K key) {
+        return cache.containsKey(key) || evicted.containsKey(key);
+    }
+
+    /**
+     * @return The number of loaded files.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return The total weight of the loaded files, see {@link #maximumWeight(long)}.
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * Evicts the file of a key from the cache, writing it back if it has been modified.
+     *
+     * @param key The key.
+     */
+    public void evict(@NotNull K key) {
+        ConfigurationFile file = cache.remove(key);
+        if(file != null) {
+            unweigh(key);
+            evicted(key, file);
+        }
+    }
+
+    /**
+     * Writes all loaded and evicted files which have been modified.
+     *
+     * @return A future completing once all files have been written.
+     */
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        cache.forEach((key, file) -> {
+            if(file.isDirty()) batch.put(key, file);
+        });
+        evicted.forEach(batch::put);
+        return writeBatch();
+    }
+
+    /**
+     * Writes all modified files and empties the cache. Waits until the files have been written, so this can be
+     * called while the plugin is being disabled.
+     */
+    @Override
+    public void close() {
+        if(closed) return;
+        CompletableFuture<Void> written = flush();
+        closed = true;
+        cache.clear();
+        weights.clear();
+        weight = 0;
+        try {
+            written.join();
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save all files in " + directory, e);
+        }
+    }
+
+    @NotNull
+    private ConfigurationFile create(@NotNull K key) {
+        ConfigurationFile file = new ConfigurationFile(factory.get()).setFile(getFile(key));
+        if(defaultResource != null) {
+            file.setDefault(defaultResource, plugin);
+        } else {
+            file.loadDefaultWhenFileMissing(false);
+        }
+        if(setup != null) setup.accept(file);
+        return file;
+    }
+
+    private void insert(@NotNull K key, @NotNull ConfigurationFile file) {
+        cache.put(key, file);
+        weigh(key, file);
+        evictOverflow();
+    }
+
+    private void weigh(@NotNull K key, @NotNull ConfigurationFile file) {
+        // files which have not been saved yet still count
+        long current = Math.max(1, file.syncedSize());
+        Long previous = weights.put(key, current);
+        weight += current - (previous == null ? 0 : previous);
+    }
+
+    private void unweigh(@NotNull K key) {
+        Long previous = weights.remove(key);
+        if(previous != null) weight -= previous;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, ConfigurationFile>> it = cache.entrySet().iterator();
+        while((cache.size() > maximumSize || (weight > maximumWeight && cache.size() > 1)) && it.hasNext()) {
+            Map.Entry<K, ConfigurationFile> eldest = it.next();
+            it.remove();
+            unweigh(eldest.getKey());
+            evicted(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void evicted(@NotNull K key, @NotNull ConfigurationFile file) {
+        if(!file.isDirty()) return;
+        evicted.put(key, file);
+        batch.put(key, file);
+        if(batch.size() >= BATCH_SIZE) {
+            writeBatch();
+        } else if(!batchScheduled) {
+            batchScheduled = true;
+            runSync(this::writeBatch);
+        }
+    }
+
+    /**
+     * Writes the files of the current batch on the I/O executor, by a single task per write mode.
+     */
+    @NotNull
+    private CompletableFuture<Void> writeBatch() {
+        batchScheduled = false;
+        if(batch.isEmpty()) return CompletableFuture.completedFuture(null);
+        Map<ConfigurationIO.WriteMode, Map<File, byte[]>> contents = new EnumMap<>(ConfigurationIO.WriteMode.class);
+        Map<File, K> keys = new HashMap<>();
+        Map<File, ConfigurationFile> files = new HashMap<>();
+        for(Map.Entry<K, ConfigurationFile> entry : batch.entrySet()) {
+            ConfigurationFile file = entry.getValue();
+            File target = file.getFile();
+            try {
+                contents.computeIfAbsent(file.writeMode(), m -> new HashMap<>()).put(target, file.beginSave());
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save " + target, e);
+                continue;
+            }
+            keys.put(target, entry.getKey());
+            files.put(target, file);
+        }
+        batch.clear();
+        if(contents.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        contents.forEach((mode, group) -> ConfigurationIO.writeAll(group, mode).forEach((target, future) -> futures.add(future.whenComplete((v, e) -> {
+            ConfigurationFile file = files.get(target);
+            if(e != null) plugin.getLogger().log(Level.SEVERE, "Could not save " + target, e);
+            runSync(() -> {
+                file.endSave(e);
+                // an evicted file that has been written can be loaded from disk again
+                if(e == null && !file.isDirty()) evicted.remove(keys.get(target), file);
+            });
+        }))));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Runs the task on the main thread. Once the plugin has been disabled, the task is run directly instead.
+     */
+    private void runSync(@NotNull Runnable task) {
+        if(plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        } else {
+            task.run();
+        }
+    }
+}
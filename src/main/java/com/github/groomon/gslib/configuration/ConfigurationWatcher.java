@@ -0,0 +1,219 @@
+package com.github.groomon.gslib.configuration;
+
+import com.github.groomon.gslib.Lifecycle;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Reloads {@link ConfigurationFile}s when their files are changed on disk, for example by editing them while the
+ * server is running.
+ * <p>
+ * All registered files are watched by a single thread. Changes are debounced, so a file is only reloaded once it has
+ * not been written to for {@link #DEBOUNCE_MILLIS} milliseconds. The file is parsed into a new configuration off the
+ * main thread, which then replaces the contents of the {@link ConfigurationFile} on the main thread before the
+ * {@link Lifecycle#reload()} of its owner is called. Saves of the {@link ConfigurationFile} itself do not trigger a
+ * reload.
+ * <p>
+ * Files with modifications that have not been saved yet are not reloaded, so they are not lost.
+ */
+public class ConfigurationWatcher implements AutoCloseable {
+
+    public static final long DEBOUNCE_MILLIS = 500;
+
+    @NotNull
+    private final JavaPlugin plugin;
+    // the registrations by the directory containing their files
+    private final Map<Path, List<Registration>> registrations = new ConcurrentHashMap<>();
+    // the keys of the watched directories, guarded by this
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private WatchService service;
+    private volatile boolean closed;
+
+    public ConfigurationWatcher(@NotNull JavaPlugin plugin) {
+        Validate.notNull(plugin, "Plugin cannot be null");
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts watching the file of the given configuration.
+     *
+     * @param file The configuration to reload. Its file has to be set.
+     * @param owner The owner reloaded after the configuration has been reloaded.
+     * @return This ConfigurationWatcher.
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    @NotNull
+    public synchronized ConfigurationWatcher register(@NotNull ConfigurationFile file, @NotNull Lifecycle owner) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        Validate.notNull(owner, "Owner cannot be null");
+        if(closed) throw new IllegalStateException("Watcher has been closed");
+        File configFile = file.getFile();
+        if(configFile == null) throw new IllegalStateException("Configuration file has not been set");
+        file.newConfiguration(false); // fails early if the configuration cannot be parsed separately
+
+        Path path = configFile.toPath().toAbsolutePath().normalize();
+        Path directory = path.getParent();
+        if(service == null) {
+            service = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this::run, "gslib-config-watcher-" + plugin.getName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if(!keys.containsKey(directory)) {
+            keys.put(directory, directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+        registrations.computeIfAbsent(directory, d -> new CopyOnWriteArrayList<>()).add(new Registration(file, owner, path));
+        return this;
+    }
+
+    /**
+     * Stops watching the file of the given configuration. Directories without any watched files are no longer watched.
+     *
+     * @param file The configuration to stop watching.
+     */
+    public synchronized void unregister(@NotNull ConfigurationFile file) {
+        Validate.notNull(file, "File cannot be null");
+        for(Iterator<Map.Entry<Path, List<Registration>>> it = registrations.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, List<Registration>> entry = it.next();
+            List<Registration> list = entry.getValue();
+            list.removeIf(registration -> registration.file == file);
+            if(list.isEmpty()) {
+                it.remove();
+                WatchKey key = keys.remove(entry.getKey());
+                if(key != null) key.cancel();
+            }
+        }
+    }
+
+    /**
+     * Stops watching all files. Reloads which are already in progress are discarded.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        registrations.clear();
+        keys.clear();
+        if(service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not close the configuration watcher", e);
+            }
+        }
+    }
+
+    private void run() {
+        // the time at which each changed file is due to be reloaded
+        Map<Registration, Long> due = new HashMap<>();
+        try {
+            while(!closed) {
+                long now = System.currentTimeMillis();
+                long wait = Long.MAX_VALUE;
+                for(Iterator<Map.Entry<Registration, Long>> it = due.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Registration, Long> entry = it.next();
+                    if(entry.getValue() <= now) {
+                        it.remove();
+                        reload(entry.getKey());
+                    } else {
+                        wait = Math.min(wait, entry.getValue() - now);
+                    }
+                }
+
+                WatchKey key = wait == Long.MAX_VALUE ? service.take() : service.poll(wait, TimeUnit.MILLISECONDS);
+                if(key == null) continue;
+                Path directory = (Path) key.watchable();
+                List<Registration> watched = registrations.get(directory);
+                long deadline = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(watched == null) break;
+                    for(Registration registration : watched) {
+                        if(event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || registration.path.equals(directory.resolve((Path) event.context()))) {
+                            due.put(registration, deadline);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void reload(@NotNull Registration registration) {
+        ConfigurationFile file = registration.file;
+        // taken before checking the file, a save after this point discards the reload
+        int version = file.diskVersion();
+        if(!file.isChangedOnDisk()) return;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return file.parseFile();
+            } catch (IOException | InvalidConfigurationException e) {
+                throw new CompletionException(e);
+            }
+        }, ConfigurationIO.EXECUTOR).whenComplete((fresh, e) -> {
+            if(e != null) {
+                plugin.getLogger().log(Level.WARNING, "Could not reload " + registration.path, e);
+                return;
+            }
+            if(closed || !plugin.isEnabled()) return;
+            plugin.getServer().getScheduler().runTask(plugin, () -> swap(registration, fresh, version));
+        });
+    }
+
+    private void swap(@NotNull Registration registration, @NotNull FileConfiguration fresh, int version) {
+        if(closed || !registrations.getOrDefault(registration.path.getParent(), Collections.emptyList()).contains(registration)) return;
+        ConfigurationFile file = registration.file;
+        // saved or loaded since the file was parsed, the parsed contents are older than the current ones. If the file
+        // has been changed on disk again, the watcher has seen that change as well and reloads it later
+        if(file.diskVersion() != version) return;
+        if(file.isDirty()) {
+            plugin.getLogger().warning("Not reloading " + registration.path + ", it has modifications which have not been saved");
+            return;
+        }
+        file.replace(fresh);
+        if(!registration.owner.reload()) {
+            plugin.getLogger().warning("Could not reload after " + registration.path + " has changed");
+        }
+    }
+
+    private static final class Registration {
+
+        @NotNull
+        final ConfigurationFile file;
+        @NotNull
+        final Lifecycle owner;
+        @NotNull
+        final Path path;
+
+        Registration(@NotNull ConfigurationFile file, @NotNull Lifecycle owner, @NotNull Path path) {
+            this.file = file;
+            this.owner = owner;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.github.groomon.gslib.configuration;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A process wide cache of parsed default resources, so that files created from the same default resource do not
+ * read and parse it again.
+ * <p>
+ * Templates are kept as {@link ConfigurationSnapshot}s, which can be shared between threads, and are copied into the
+ * configurations they are loaded into. They are cached per plugin instance and released when the plugin is disabled,
+ * so they are parsed again after the plugin has been reloaded.
+ */
+final class DefaultTemplates {
+
+    // guarded by itself, plugins are removed when they are disabled, as the templates may hold values referencing them
+    private static final Map<JavaPlugin, Map<Key, Template>> TEMPLATES = new HashMap<>();
+    // plugins whose release listener is about to be registered on the main thread, guarded by TEMPLATES
+    private static final Set<JavaPlugin> REGISTERING = new HashSet<>();
+
+    private DefaultTemplates() {
+    }
+
+    /**
+     * Checks whether the resource has already been parsed for configurations like the given one.
+     */
+    static boolean isCached(@NotNull JavaPlugin plugin, @NotNull String resource, @NotNull FileConfiguration config) {
+        synchronized (TEMPLATES) {
+            Map<Key, Template> templates = TEMPLATES.get(plugin);
+            return templates != null && templates.containsKey(new Key(resource, config));
+        }
+    }
+
+    /**
+     * Loads the given resource into the configuration, parsing it only if it has not been parsed for this type of
+     * configuration and path separator before.
+     *
+     * @param plugin The plugin containing the resource.
+     * @param resource The path of the resource.
+     * @param config The configuration to load the resource into.
+     * @param factory Creates an empty configuration of the same type and with the same options to parse the resource.
+     */
+    static void load(@NotNull JavaPlugin plugin, @NotNull String resource, @NotNull FileConfiguration config,
+                     @NotNull Supplier<FileConfiguration> factory) throws IOException, InvalidConfigurationException {
+        Key key = new Key(resource, config);
+        Template template;
+        synchronized (TEMPLATES) {
+            Map<Key, Template> templates = TEMPLATES.get(plugin);
+            template = templates == null ? null : templates.get(key);
+        }
+        if(template == null) {
+            // parsed outside of the lock, a resource parsed twice concurrently is harmless
+            template = parse(plugin, resource, factory.get());
+            cache(plugin, key, template);
+        }
+        copy(template.contents, config);
+        if(template.header != null && !template.header.isEmpty()) config.options().header(template.header);
+    }
+
+    /**
+     * Caches the template once the plugin listens for being disabled. Templates parsed before that, such as on an I/O
+     * thread while the listener is registered on the main thread, are not cached.
+     */
+    private static void cache(@NotNull JavaPlugin plugin, @NotNull Key key, @NotNull Template template) {
+        // a disabled plugin does not receive its disable event, so its templates would never be released
+        if(!plugin.isEnabled()) return;
+        if(plugin.getServer().isPrimaryThread()) {
+            listen(plugin);
+        } else if(!isListening(plugin)) {
+            listenLater(plugin);
+            return;
+        }
+        synchronized (TEMPLATES) {
+            Map<Key, Template> templates = TEMPLATES.get(plugin);
+            if(templates != null) templates.put(key, template);
+        }
+    }
+
+    private static boolean isListening(@NotNull JavaPlugin plugin) {
+        synchronized (TEMPLATES) {
+            return TEMPLATES.containsKey(plugin);
+        }
+    }
+
+    private static void listenLater(@NotNull JavaPlugin plugin) {
+        synchronized (TEMPLATES) {
+            // plugins disabled before their task could run
+            REGISTERING.removeIf(registering -> !registering.isEnabled());
+            if(!REGISTERING.add(plugin)) return;
+        }
+        try {
+            plugin.getServer().getScheduler().runTask(plugin, () -> listen(plugin));
+        } catch (IllegalPluginAccessException e) {
+            // the plugin has been disabled in the meantime
+            synchronized (TEMPLATES) {
+                REGISTERING.remove(plugin);
+            }
+        }
+    }
+
+    /**
+     * Registers the listener releasing the templates of the plugin on the main thread, as listeners cannot be
+     * registered concurrently.
+     */
+    private static void listen(@NotNull JavaPlugin plugin) {
+        synchronized (TEMPLATES) {
+            REGISTERING.remove(plugin);
+            if(!plugin.isEnabled() || TEMPLATES.containsKey(plugin)) return;
+            TEMPLATES.put(plugin, new HashMap<>());
+        }
+        plugin.getServer().getPluginManager().registerEvents(new Release(plugin), plugin);
+    }
+
+    @NotNull
+    private static Template parse(@NotNull JavaPlugin plugin, @NotNull String resource, @NotNull FileConfiguration parsed)
+            throws IOException, InvalidConfigurationException {
+        InputStream is = plugin.getResource(resource);
+        if(is == null) throw new FileNotFoundException("Default file could not be found");
+        try {
+            if(parsed instanceof StreamingConfiguration) {
+                ((StreamingConfiguration) parsed).load(is);
+            } else {
+                parsed.load(new InputStreamReader(is));
+            }
+        } finally {
+            is.close();
+        }
+        return new Template(ConfigurationSnapshot.of(parsed, null, parsed.options().pathSeparator()), parsed.options().header());
+    }
+
+    /**
+     * Copies the template into the section, creating new sections and mutable copies of all values.
+     */
+    private static void copy(@NotNull ConfigurationSnapshot template, @NotNull ConfigurationSection section) {
+        for(String key : template.getKeys(false)) {
+            Object value = template.get(key, null);
+            if(value instanceof ConfigurationSnapshot) {
+                copy((ConfigurationSnapshot) value, section.createSection(key));
+            } else {
+                section.set(key, mutableCopy(value));
+            }
+        }
+    }
+
+    /**
+     * Copies a value of a snapshot into the form it would have been loaded as.
+     */
+    @Nullable
+    private static Object mutableCopy(@Nullable Object value) {
+        if(value instanceof Vector) {
+            Vector vector = (Vector) value;
+            return new Vector(vector.getX(), vector.getY(), vector.getZ());
+        }
+        // deserialized again by the snapshot on every read, serializable sets must not become plain sets
+        if(value instanceof ConfigurationSerializable) return value;
+        if(value instanceof IntArrayList && ((IntArrayList) value).isPacked()) return new IntArrayList(((IntArrayList) value).toIntArray());
+        if(value instanceof LongArrayList && ((LongArrayList) value).isPacked()) return new LongArrayList(((LongArrayList) value).toLongArray());
+        if(value instanceof DoubleArrayList && ((DoubleArrayList) value).isPacked()) return new DoubleArrayList(((DoubleArrayList) value).toDoubleArray());
+        if(value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for(Object element : list) {
+                copy.add(mutableCopy(element));
+            }
+            return copy;
+        }
+        if(value instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<>();
+            for(Object element : (Collection<?>) value) {
+                copy.add(mutableCopy(element));
+            }
+            return copy;
+        }
+        if(value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), mutableCopy(entry.getValue()));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static final class Template {
+
+        @NotNull
+        final ConfigurationSnapshot contents;
+        @Nullable
+        final String header;
+
+        Template(@NotNull ConfigurationSnapshot contents, @Nullable String header) {
+            this.contents = contents;
+            this.header = header;
+        }
+    }
+
+    /**
+     * Identifies a template by everything it is parsed with, as the path separator decides how keys are split.
+     */
+    private static final class Key {
+
+        @NotNull
+        final String resource;
+        @NotNull
+        final Class<?> type;
+        final char separator;
+
+        Key(@NotNull String resource, @NotNull FileConfiguration config) {
+            this.resource = resource;
+            this.type = config.getClass();
+            this.separator = config.options().pathSeparator();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return resource.equals(other.resource) && type == other.type && separator == other.separator;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * resource.hashCode() + type.hashCode()) + separator;
+        }
+    }
+
+    /**
+     * Releases the templates of a plugin when it is disabled.
+     */
+    private static final class Release implements Listener {
+
+        @NotNull
+        private final JavaPlugin plugin;
+
+        Release(@NotNull JavaPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPluginDisable(PluginDisableEvent event) {
+            if(event.getPlugin() != plugin) return;
+            synchronized (TEMPLATES) {
+                TEMPLATES.remove(plugin);
+            }
+        }
+    }
+}
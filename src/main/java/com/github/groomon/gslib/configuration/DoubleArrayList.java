@@ -0,0 +1,179 @@
+package com.github.groomon.gslib.configuration;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A list of doubles backed by a primitive array.
+ * <p>
+ * Configurations store numeric lists as this type, so large series do not hold a boxed object per element. It is a
+ * regular {@link java.util.List} which behaves like an {@link ArrayList}, boxing only when elements are accessed
+ * through that interface. The primitive accessors, such as {@link #getDouble(int)}, never box.
+ * <p>
+ * As configuration lists may hold any value, adding or setting an element which is not a {@link Double} moves the
+ * elements into a boxed list, which backs this list from then on (see {@link #isPacked()}). The primitive accessors
+ * keep working on such a list as long as the accessed elements are {@link Double}s.
+ *
+ * @see ConfigurationFile#getDoubleArray(String)
+ */
+public class DoubleArrayList extends PrimitiveArrayList {
+
+    private static final double[] EMPTY = new double[0];
+
+    @NotNull
+    private double[] elements;
+
+    public DoubleArrayList() {
+        elements = EMPTY;
+    }
+
+    public DoubleArrayList(int capacity) {
+        Validate.isTrue(capacity >= 0, "Capacity cannot be negative");
+        elements = capacity == 0 ? EMPTY : new double[capacity];
+    }
+
+    /**
+     * Creates a list containing a copy of the given values.
+     *
+     * @param values The values of the list.
+     */
+    public DoubleArrayList(@NotNull double[] values) {
+        Validate.notNull(values, "Values cannot be null");
+        elements = values.clone();
+        size = values.length;
+    }
+
+    private DoubleArrayList(@NotNull double[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list backed by the given array, which must not be used by the caller afterwards.
+     *
+     * @param elements The array holding the elements.
+     * @param size The number of elements used from the array.
+     * @return The list.
+     */
+    @NotNull
+    public static DoubleArrayList wrap(@NotNull double[] elements, int size) {
+        Validate.notNull(elements, "Elements cannot be null");
+        Validate.isTrue(size >= 0 && size <= elements.length, "Size is out of bounds");
+        return new DoubleArrayList(elements, size);
+    }
+
+    /**
+     * Gets an element as double.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     * @throws ClassCastException If the list is not packed and the element is not a {@link Double}.
+     */
+    public double getDouble(int index) {
+        if(boxed != null) return (Double) boxed.get(index);
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public double setDouble(int index, double value) {
+        if(boxed != null) return (Double) boxed.set(index, value);
+        checkIndex(index);
+        double old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addDouble(double value) {
+        addDouble(size(), value);
+    }
+
+    public void addDouble(int index, double value) {
+        modCount++;
+        if(boxed != null) {
+            boxed.add(index, value);
+            return;
+        }
+        insert(index);
+        elements[index] = value;
+    }
+
+    public double removeDouble(int index) {
+        Object old = remove(index);
+        return (Double) old;
+    }
+
+    /**
+     * Copies the elements into a new array.
+     *
+     * @return The elements.
+     * @throws ClassCastException If the list is not packed and holds an element which is not a {@link Double}.
+     */
+    @NotNull
+    public double[] toDoubleArray() {
+        if(boxed == null) return Arrays.copyOf(elements, size);
+        double[] values = new double[boxed.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = (Double) boxed.get(i);
+        }
+        return values;
+    }
+
+    @NotNull
+    @Override
+    Object array() {
+        return elements;
+    }
+
+    @Override
+    int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        elements = capacity == 0 ? EMPTY : Arrays.copyOf(elements, capacity);
+    }
+
+    @NotNull
+    @Override
+    Object packed(int index) {
+        return elements[index];
+    }
+
+    @Override
+    boolean accepts(@Nullable Object element) {
+        return element instanceof Double;
+    }
+
+    @Override
+    Object setPacked(int index, @NotNull Object element) {
+        return setDouble(index, (Double) element);
+    }
+
+    @Override
+    void addPacked(int index, @NotNull Object element) {
+        addDouble(index, (Double) element);
+    }
+
+    @Override
+    boolean packedEquals(@NotNull PrimitiveArrayList other) {
+        double[] values = ((DoubleArrayList) other).elements;
+        for(int i = 0; i < size; i++) {
+            if(Double.doubleToLongBits(elements[i]) != Double.doubleToLongBits(values[i])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    int packedHashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++) {
+            hash = 31 * hash + Double.hashCode(elements[i]);
+        }
+        return hash;
+    }
+}
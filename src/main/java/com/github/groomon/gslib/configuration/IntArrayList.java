@@ -0,0 +1,179 @@
+package com.github.groomon.gslib.configuration;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A list of ints backed by a primitive array.
+ * <p>
+ * Configurations store numeric lists as this type, so large series do not hold a boxed object per element. It is a
+ * regular {@link java.util.List} which behaves like an {@link ArrayList}, boxing only when elements are accessed
+ * through that interface. The primitive accessors, such as {@link #getInt(int)}, never box.
+ * <p>
+ * As configuration lists may hold any value, adding or setting an element which is not an {@link Integer} moves the
+ * elements into a boxed list, which backs this list from then on (see {@link #isPacked()}). The primitive accessors
+ * keep working on such a list as long as the accessed elements are {@link Integer}s.
+ *
+ * @see ConfigurationFile#getIntArray(String)
+ */
+public class IntArrayList extends PrimitiveArrayList {
+
+    private static final int[] EMPTY = new int[0];
+
+    @NotNull
+    private int[] elements;
+
+    public IntArrayList() {
+        elements = EMPTY;
+    }
+
+    public IntArrayList(int capacity) {
+        Validate.isTrue(capacity >= 0, "Capacity cannot be negative");
+        elements = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    /**
+     * Creates a list containing a copy of the given values.
+     *
+     * @param values The values of the list.
+     */
+    public IntArrayList(@NotNull int[] values) {
+        Validate.notNull(values, "Values cannot be null");
+        elements = values.clone();
+        size = values.length;
+    }
+
+    private IntArrayList(@NotNull int[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list backed by the given array, which must not be used by the caller afterwards.
+     *
+     * @param elements The array holding the elements.
+     * @param size The number of elements used from the array.
+     * @return The list.
+     */
+    @NotNull
+    public static IntArrayList wrap(@NotNull int[] elements, int size) {
+        Validate.notNull(elements, "Elements cannot be null");
+        Validate.isTrue(size >= 0 && size <= elements.length, "Size is out of bounds");
+        return new IntArrayList(elements, size);
+    }
+
+    /**
+     * Gets an element as int.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     * @throws ClassCastException If the list is not packed and the element is not an {@link Integer}.
+     */
+    public int getInt(int index) {
+        if(boxed != null) return (Integer) boxed.get(index);
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public int setInt(int index, int value) {
+        if(boxed != null) return (Integer) boxed.set(index, value);
+        checkIndex(index);
+        int old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addInt(int value) {
+        addInt(size(), value);
+    }
+
+    public void addInt(int index, int value) {
+        modCount++;
+        if(boxed != null) {
+            boxed.add(index, value);
+            return;
+        }
+        insert(index);
+        elements[index] = value;
+    }
+
+    public int removeInt(int index) {
+        Object old = remove(index);
+        return (Integer) old;
+    }
+
+    /**
+     * Copies the elements into a new array.
+     *
+     * @return The elements.
+     * @throws ClassCastException If the list is not packed and holds an element which is not an {@link Integer}.
+     */
+    @NotNull
+    public int[] toIntArray() {
+        if(boxed == null) return Arrays.copyOf(elements, size);
+        int[] values = new int[boxed.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = (Integer) boxed.get(i);
+        }
+        return values;
+    }
+
+    @NotNull
+    @Override
+    Object array() {
+        return elements;
+    }
+
+    @Override
+    int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        elements = capacity == 0 ? EMPTY : Arrays.copyOf(elements, capacity);
+    }
+
+    @NotNull
+    @Override
+    Object packed(int index) {
+        return elements[index];
+    }
+
+    @Override
+    boolean accepts(@Nullable Object element) {
+        return element instanceof Integer;
+    }
+
+    @Override
+    Object setPacked(int index, @NotNull Object element) {
+        return setInt(index, (Integer) element);
+    }
+
+    @Override
+    void addPacked(int index, @NotNull Object element) {
+        addInt(index, (Integer) element);
+    }
+
+    @Override
+    boolean packedEquals(@NotNull PrimitiveArrayList other) {
+        int[] values = ((IntArrayList) other).elements;
+        for(int i = 0; i < size; i++) {
+            if(elements[i] != values[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    int packedHashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++) {
+            hash = 31 * hash + elements[i];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.groomon.gslib.configuration;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A list of longs backed by a primitive array.
+ * <p>
+ * Configurations store numeric lists as this type, so large series do not hold a boxed object per element. It is a
+ * regular {@link java.util.List} which behaves like an {@link ArrayList}, boxing only when elements are accessed
+ * through that interface. The primitive accessors, such as {@link #getLong(int)}, never box.
+ * <p>
+ * As configuration lists may hold any value, adding or setting an element which is not a {@link Long} moves the
+ * elements into a boxed list, which backs this list from then on (see {@link #isPacked()}). The primitive accessors
+ * keep working on such a list as long as the accessed elements are {@link Long}s.
+ *
+ * @see ConfigurationFile#getLongArray(String)
+ */
+public class LongArrayList extends PrimitiveArrayList {
+
+    private static final long[] EMPTY = new long[0];
+
+    @NotNull
+    private long[] elements;
+
+    public LongArrayList() {
+        elements = EMPTY;
+    }
+
+    public LongArrayList(int capacity) {
+        Validate.isTrue(capacity >= 0, "Capacity cannot be negative");
+        elements = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    /**
+     * Creates a list containing a copy of the given values.
+     *
+     * @param values The values of the list.
+     */
+    public LongArrayList(@NotNull long[] values) {
+        Validate.notNull(values, "Values cannot be null");
+        elements = values.clone();
+        size = values.length;
+    }
+
+    private LongArrayList(@NotNull long[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list backed by the given array, which must not be used by the caller afterwards.
+     *
+     * @param elements The array holding the elements.
+     * @param size The number of elements used from the array.
+     * @return The list.
+     */
+    @NotNull
+    public static LongArrayList wrap(@NotNull long[] elements, int size) {
+        Validate.notNull(elements, "Elements cannot be null");
+        Validate.isTrue(size >= 0 && size <= elements.length, "Size is out of bounds");
+        return new LongArrayList(elements, size);
+    }
+
+    /**
+     * Gets an element as long.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     * @throws ClassCastException If the list is not packed and the element is not a {@link Long}.
+     */
+    public long getLong(int index) {
+        if(boxed != null) return (Long) boxed.get(index);
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public long setLong(int index, long value) {
+        if(boxed != null) return (Long) boxed.set(index, value);
+        checkIndex(index);
+        long old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    public void addLong(long value) {
+        addLong(size(), value);
+    }
+
+    public void addLong(int index, long value) {
+        modCount++;
+        if(boxed != null) {
+            boxed.add(index, value);
+            return;
+        }
+        insert(index);
+        elements[index] = value;
+    }
+
+    public long removeLong(int index) {
+        Object old = remove(index);
+        return (Long) old;
+    }
+
+    /**
+     * Copies the elements into a new array.
+     *
+     * @return The elements.
+     * @throws ClassCastException If the list is not packed and holds an element which is not a {@link Long}.
+     */
+    @NotNull
+    public long[] toLongArray() {
+        if(boxed == null) return Arrays.copyOf(elements, size);
+        long[] values = new long[boxed.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = (Long) boxed.get(i);
+        }
+        return values;
+    }
+
+    @NotNull
+    @Override
+    Object array() {
+        return elements;
+    }
+
+    @Override
+    int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        elements = capacity == 0 ? EMPTY : Arrays.copyOf(elements, capacity);
+    }
+
+    @NotNull
+    @Override
+    Object packed(int index) {
+        return elements[index];
+    }
+
+    @Override
+    boolean accepts(@Nullable Object element) {
+        return element instanceof Long;
+    }
+
+    @Override
+    Object setPacked(int index, @NotNull Object element) {
+        return setLong(index, (Long) element);
+    }
+
+    @Override
+    void addPacked(int index, @NotNull Object element) {
+        addLong(index, (Long) element);
+    }
+
+    @Override
+    boolean packedEquals(@NotNull PrimitiveArrayList other) {
+        long[] values = ((LongArrayList) other).elements;
+        for(int i = 0; i < size; i++) {
+            if(elements[i] != values[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    int packedHashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(elements[i]);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.groomon.gslib.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The part of {@link IntArrayList}, {@link LongArrayList} and {@link DoubleArrayList} which does not depend on the
+ * element type. Subclasses hold the primitive array and implement the primitive accessors, while this class handles
+ * the size, the move into a boxed list and the {@link List} operations working on boxed elements.
+ * <p>
+ * Like any {@link List}, two lists are equal if they hold equal elements, regardless of their variant. As a packed
+ * list only holds elements of its own type, packed lists of different variants are equal only if they are empty,
+ * while lists which were moved into a boxed list are compared element by element.
+ */
+abstract class PrimitiveArrayList extends AbstractList<Object> implements RandomAccess {
+
+    int size;
+    // holds the elements instead once one of them is not of the element type
+    @Nullable
+    List<Object> boxed;
+
+    PrimitiveArrayList() {
+    }
+
+    /**
+     * Checks whether the elements are still stored in a primitive array, that is whether all elements which were
+     * ever added are of the element type. Only packed lists can be read and written without boxing.
+     *
+     * @return Whether the list is packed.
+     */
+    public boolean isPacked() {
+        return boxed == null;
+    }
+
+    @Override
+    public Object get(int index) {
+        if(boxed != null) return boxed.get(index);
+        checkIndex(index);
+        return packed(index);
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        if(boxed == null && accepts(element)) return setPacked(index, element);
+        checkIndex(index);
+        return box().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if(boxed == null && accepts(element)) {
+            addPacked(index, element);
+            return;
+        }
+        if(index < 0 || index > size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        modCount++;
+        box().add(index, element);
+    }
+
+    @Override
+    public Object remove(int index) {
+        checkIndex(index);
+        modCount++;
+        if(boxed != null) return boxed.remove(index);
+        Object old = packed(index);
+        Object array = array();
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return boxed != null ? boxed.size() : size;
+    }
+
+    @Override
+    public void clear() {
+        // an empty list can be packed again
+        if(boxed != null) {
+            boxed = null;
+            resize(0);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o == this) return true;
+        if(!(o instanceof PrimitiveArrayList)) return super.equals(o);
+        PrimitiveArrayList other = (PrimitiveArrayList) o;
+        if(boxed != null || other.boxed != null) return super.equals(o);
+        if(other.size != size) return false;
+        if(size == 0) return true;
+        // the elements of packed lists of different variants, such as Integer and Long, are never equal
+        return other.array().getClass() == array().getClass() && packedEquals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        if(boxed != null) return boxed.hashCode();
+        return packedHashCode();
+    }
+
+    /**
+     * Makes room for an element at the given index of the primitive array, growing it if needed. The caller has to
+     * store the element at the index afterwards.
+     *
+     * @param index The index of the new element.
+     */
+    void insert(int index) {
+        if(index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        int capacity = capacity();
+        if(size == capacity) resize(Math.max(8, capacity + (capacity >> 1)));
+        Object array = array();
+        System.arraycopy(array, index, array, index + 1, size - index);
+        size++;
+    }
+
+    void checkIndex(int index) {
+        if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    /**
+     * Moves the elements into a boxed list.
+     */
+    @NotNull
+    List<Object> box() {
+        if(boxed == null) {
+            List<Object> list = new ArrayList<>(size + 1);
+            for(int i = 0; i < size; i++) {
+                list.add(packed(i));
+            }
+            boxed = list;
+            resize(0);
+            size = 0;
+        }
+        return boxed;
+    }
+
+    /**
+     * @return The primitive array, to be passed to {@link System#arraycopy}.
+     */
+    @NotNull
+    abstract Object array();
+
+    abstract int capacity();
+
+    /**
+     * Replaces the primitive array by one of the given length, keeping the first {@link #size} elements.
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * @return The element at the given index of the primitive array, boxed.
+     */
+    @NotNull
+    abstract Object packed(int index);
+
+    /**
+     * @return Whether the element is of the element type, so it can be stored in the primitive array.
+     */
+    abstract boolean accepts(@Nullable Object element);
+
+    abstract Object setPacked(int index, @NotNull Object element);
+
+    abstract void addPacked(int index, @NotNull Object element);
+
+    /**
+     * Compares the primitive arrays of two packed lists of the same size and variant.
+     */
+    abstract boolean packedEquals(@NotNull PrimitiveArrayList other);
+
+    abstract int packedHashCode();
+}
@@ -0,0 +1,527 @@
+package com.github.groomon.gslib.configuration;
+
+import com.github.groomon.gslib.configuration.json.JsonReader;
+import com.github.groomon.gslib.configuration.json.JsonWriter;
+import com.github.groomon.gslib.configuration.json.SerializableIntSet;
+import com.github.groomon.gslib.configuration.json.SerializableLongSet;
+import com.github.groomon.gslib.configuration.json.SerializableSet;
+import com.github.groomon.gslib.configuration.json.SerializableUuidSet;
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An append only log of records, such as audit logs, kill feeds or transaction histories, which are too large to be
+ * loaded and rewritten as a whole like a {@link ConfigurationFile}.
+ * <p>
+ * Each record is stored as one line of JSON in the format of {@link com.github.groomon.gslib.configuration.json.JsonConfiguration},
+ * so records can be any value a configuration can hold, including {@link org.bukkit.inventory.ItemStack}s and other
+ * serializable objects. Records are serialized on the thread appending them and written in batches on the I/O
+ * executor, so appending does not block on the disk. Records appended while a batch is being written are written
+ * together with the next one.
+ * <p>
+ * The log is split into segments named {@code <name>.<index>.jsonl}. Once a segment has grown past
+ * {@link #segmentSize(long)}, records are appended to a new one, and the oldest segments are deleted if there are more
+ * than {@link #maxSegments(int)}. Records are read lazily by {@link #stream()}, oldest first.
+ * <p>
+ * A log can be used from any thread, but only one log should be open per directory and name.
+ */
+public class RecordLog implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(RecordLog.class.getName());
+
+    private static final String EXTENSION = ".jsonl";
+
+    @NotNull
+    private final File directory;
+    @NotNull
+    private final String name;
+    @NotNull
+    private final Pattern segmentPattern;
+    private volatile long segmentSize = 64L * 1024 * 1024;
+    private volatile int maxSegments;
+    private volatile boolean sync;
+
+    // the records which have not been written yet, guarded by this
+    @NotNull
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    @NotNull
+    private CompletableFuture<Void> pendingWritten = new CompletableFuture<>();
+    // the future of the batch being written, if any
+    @Nullable
+    private CompletableFuture<Void> writing;
+    private boolean scheduled;
+    private boolean closed;
+
+    // only used by the task writing the batches, guarded by writeLock
+    private final Object writeLock = new Object();
+    @Nullable
+    private FileChannel channel;
+    private long index = -1;
+
+    /**
+     * @param directory The directory containing the segments.
+     * @param name The name of the log, which the names of the segments start with.
+     */
+    public RecordLog(@NotNull File directory, @NotNull String name) {
+        Validate.notNull(directory, "Directory cannot be null");
+        Validate.notNull(name, "Name cannot be null");
+        Validate.isTrue(!name.isEmpty(), "Name cannot be empty");
+        this.directory = directory;
+        this.name = name;
+        this.segmentPattern = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)" + Pattern.quote(EXTENSION));
+        ConfigurationSerialization.registerClass(SerializableSet.class);
+        ConfigurationSerialization.registerClass(SerializableIntSet.class);
+        ConfigurationSerialization.registerClass(SerializableLongSet.class);
+        ConfigurationSerialization.registerClass(SerializableUuidSet.class);
+    }
+
+    /**
+     * Sets the size after which records are appended to a new segment. Defaults to 64 MB.
+     *
+     * @param bytes The size in bytes.
+     * @return This object, for chaining.
+     */
+    @NotNull
+    public RecordLog segmentSize(long bytes) {
+        Validate.isTrue(bytes > 0, "Segment size has to be positive");
+        segmentSize = bytes;
+        return this;
+    }
+
+    /**
+     * Sets how many segments are kept. The oldest segments are deleted whenever a new segment is started and there
+     * are more. Defaults to 0, which keeps all segments.
+     *
+     * @param count The number of segments, including the one records are appended to.
+     * @return This object, for chaining.
+     */
+    @NotNull
+    public RecordLog maxSegments(int count) {
+        Validate.isTrue(count >= 0, "Number of segments cannot be negative");
+        maxSegments = count;
+        return this;
+    }
+
+    /**
+     * Sets whether each batch is forced to the storage device before its future completes, so records are not lost
+     * if the system crashes. Defaults to false.
+     *
+     * @param sync Whether batches are forced to the device.
+     * @return This object, for chaining.
+     */
+    @NotNull
+    public RecordLog sync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * Appends a record to the log. The record is serialized right away, so it can be modified afterwards.
+     *
+     * @param record The record to append.
+     * @return A future completing once the record has been written.
+     */
+    @NotNull
+    public CompletableFuture<Void> append(@Nullable Object record) {
+        byte[] line = serialize(record);
+        synchronized (this) {
+            if(closed) throw new IllegalStateException("Record log has been closed");
+            pending.write(line, 0, line.length);
+            return schedule();
+        }
+    }
+
+    /**
+     * Appends records to the log, all within the same batch.
+     *
+     * @param records The records to append.
+     * @return A future completing once the records have been written.
+     */
+    @NotNull
+    public CompletableFuture<Void> appendAll(@NotNull Iterable<?> records) {
+        Validate.notNull(records, "Records cannot be null");
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for(Object record : records) {
+            byte[] line = serialize(record);
+            lines.write(line, 0, line.length);
+        }
+        synchronized (this) {
+            if(closed) throw new IllegalStateException("Record log has been closed");
+            if(lines.size() == 0) return CompletableFuture.completedFuture(null);
+            byte[] bytes = lines.toByteArray();
+            pending.write(bytes, 0, bytes.length);
+            return schedule();
+        }
+    }
+
+    /**
+     * @return A future completing once all records appended so far have been written.
+     */
+    @NotNull
+    public synchronized CompletableFuture<Void> flush() {
+        if(pending.size() > 0) return pendingWritten;
+        return writing != null ? writing : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets the segments of this log which exist right now, oldest first.
+     *
+     * @return The segment files.
+     */
+    @NotNull
+    public List<File> getSegments() {
+        List<File> segments = new ArrayList<>();
+        for(long segment : listSegments()) {
+            segments.add(segmentFile(segment));
+        }
+        return segments;
+    }
+
+    /**
+     * Reads the records of all segments lazily, oldest first, holding only one record in memory at a time. Records
+     * appended while the stream is read might or might not be included, and a record which is only partially written
+     * yet is left out.
+     * <p>
+     * The stream holds an open file and has to be closed, for example by a try-with-resources statement. Errors
+     * reading a segment are thrown as {@link UncheckedIOException}s, and records which cannot be parsed as
+     * {@link IllegalStateException}s.
+     *
+     * @return The records.
+     */
+    @NotNull
+    public Stream<Object> stream() {
+        RecordIterator iterator = new RecordIterator(getSegments());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Writes all records appended so far and closes the log. Waits until the records have been written, so this can
+     * be called while the plugin is being disabled.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            if(closed) return;
+            closed = true;
+            written = flush();
+        }
+        try {
+            written.join();
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Could not write all records of " + segmentFile(Math.max(index, 0)), e);
+        }
+        synchronized (writeLock) {
+            closeChannel();
+        }
+    }
+
+    @NotNull
+    private static byte[] serialize(@Nullable Object record) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+            // strings are escaped, so the record cannot contain line breaks
+            SerializationHelper.serialize(record, new JsonWriter(writer));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Schedules the pending records to be written, if they are not yet. Called while holding the lock of this log.
+     */
+    @NotNull
+    private CompletableFuture<Void> schedule() {
+        if(!scheduled) {
+            scheduled = true;
+            ConfigurationIO.EXECUTOR.execute(this::drain);
+        }
+        return pendingWritten;
+    }
+
+    private void drain() {
+        while(true) {
+            ByteArrayOutputStream batch;
+            CompletableFuture<Void> written;
+            synchronized (this) {
+                if(pending.size() == 0) {
+                    writing = null;
+                    scheduled = false;
+                    return;
+                }
+                batch = pending;
+                written = pendingWritten;
+                writing = written;
+                pending = new ByteArrayOutputStream();
+                pendingWritten = new CompletableFuture<>();
+            }
+            try {
+                synchronized (writeLock) {
+                    write(batch);
+                }
+                written.complete(null);
+            } catch (IOException | RuntimeException e) {
+                LOG.log(Level.SEVERE, "Could not write records to " + segmentFile(Math.max(index, 0)), e);
+                written.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void write(@NotNull ByteArrayOutputStream batch) throws IOException {
+        try {
+            if(channel == null) {
+                List<Long> segments = listSegments();
+                index = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+                openChannel();
+                dropIncompleteRecord();
+            }
+            if(channel.size() > 0 && channel.size() + batch.size() > segmentSize) {
+                closeChannel();
+                index++;
+                openChannel();
+                deleteOldSegments();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if(sync) channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            // the segment might end with a partial record now, which is dropped when the next batch reopens it
+            closeChannel();
+            throw e;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        Files.createDirectories(directory.toPath());
+        channel = FileChannel.open(segmentFile(index).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Cuts off a record at the end of the current segment which has been cut off by a crash, so records appended
+     * now do not end up on the same line.
+     */
+    private void dropIncompleteRecord() throws IOException {
+        long end = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for(long position = end; position > 0; ) {
+            int length = (int) Math.min(buffer.capacity(), position);
+            position -= length;
+            buffer.clear().limit(length);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Segment has been truncated");
+            }
+            for(int i = length - 1; i >= 0; i--) {
+                if(buffer.get(i) == '\n') {
+                    truncate(position + i + 1, end);
+                    return;
+                }
+            }
+        }
+        truncate(0, end);
+    }
+
+    private void truncate(long size, long end) throws IOException {
+        if(size == end) return;
+        LOG.warning("Dropping an incomplete record at the end of " + segmentFile(index));
+        channel.truncate(size);
+        channel.position(size);
+    }
+
+    private void closeChannel() {
+        if(channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not close " + segmentFile(index), e);
+        }
+        channel = null;
+    }
+
+    private void deleteOldSegments() {
+        int max = maxSegments;
+        if(max == 0) return;
+        List<Long> segments = listSegments();
+        for(int i = 0; i < segments.size() - max; i++) {
+            File segment = segmentFile(segments.get(i));
+            try {
+                Files.deleteIfExists(segment.toPath());
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not delete the old segment " + segment, e);
+            }
+        }
+    }
+
+    /**
+     * @return The indices of the existing segments in ascending order.
+     */
+    @NotNull
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if(names == null) return segments;
+        for(String file : names) {
+            Matcher matcher = segmentPattern.matcher(file);
+            if(matcher.matches()) {
+                try {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                } catch (NumberFormatException ignored) {
+                    // too many digits to be a segment of this log
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    @NotNull
+    private File segmentFile(long segment) {
+        return new File(directory, name + "." + String.format("%06d", segment) + EXTENSION);
+    }
+
+    /**
+     * Reads the lines of the segments one after another.
+     */
+    private static final class RecordIterator implements Iterator<Object>, AutoCloseable {
+
+        @NotNull
+        private final Iterator<File> segments;
+        @Nullable
+        private File segment;
+        @Nullable
+        private Reader reader;
+        private final StringBuilder line = new StringBuilder();
+        private boolean hasNext;
+        @Nullable
+        private Object next;
+
+        RecordIterator(@NotNull List<File> segments) {
+            this.segments = segments.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(hasNext) return true;
+            try {
+                while(readLine()) {
+                    String json = line.toString().trim();
+                    if(json.isEmpty()) continue;
+                    next = parse(json);
+                    hasNext = true;
+                    return true;
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Could not read " + segment, e);
+            }
+            return false;
+        }
+
+        @Override
+        public Object next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            hasNext = false;
+            Object record = next;
+            next = null;
+            return record;
+        }
+
+        /**
+         * Reads the next complete line into {@link #line}, moving on to the next segment at the end of one.
+         *
+         * @return Whether there was another line.
+         */
+        private boolean readLine() throws IOException {
+            line.setLength(0);
+            while(true) {
+                if(reader == null && !openNext()) return false;
+                int c;
+                while((c = reader.read()) != -1) {
+                    if(c == '\n') return true;
+                    line.append((char) c);
+                }
+                // a line without a line break is still being written or has been cut off
+                line.setLength(0);
+                reader.close();
+                reader = null;
+            }
+        }
+
+        private boolean openNext() throws IOException {
+            while(segments.hasNext()) {
+                segment = segments.next();
+                try {
+                    reader = new BufferedReader(new InputStreamReader(Files.newInputStream(segment.toPath()), StandardCharsets.UTF_8));
+                    return true;
+                } catch (NoSuchFileException e) {
+                    // deleted in the meantime, as it was one of the oldest segments
+                }
+            }
+            return false;
+        }
+
+        @Nullable
+        private Object parse(@NotNull String json) {
+            try {
+                return new JsonReader(new StringReader(json)).readValue();
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                close();
+                throw new IllegalStateException("Invalid record in " + segment + ": " + json, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if(reader == null) return;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not close " + segment, e);
+            }
+            reader = null;
+        }
+    }
+}
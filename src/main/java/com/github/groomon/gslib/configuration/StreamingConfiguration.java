@@ -0,0 +1,34 @@
+package com.github.groomon.gslib.configuration;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A {@link FileConfiguration} which can be written to and read from a stream directly instead of going through a
+ * string first.
+ * {@link ConfigurationFile} uses this whenever the wrapped configuration implements it.
+ */
+public interface StreamingConfiguration {
+
+    /**
+     * Writes this configuration to the given stream. The stream is flushed, but not closed.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written to.
+     */
+    void save(@NotNull OutputStream out) throws IOException;
+
+    /**
+     * Loads this configuration from the given stream. The stream is not closed.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the stream cannot be read from.
+     * @throws InvalidConfigurationException If the stream does not contain a valid configuration.
+     */
+    void load(@NotNull InputStream in) throws IOException, InvalidConfigurationException;
+}
@@ -0,0 +1,148 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import com.github.groomon.gslib.configuration.StreamingConfiguration;
+import com.github.groomon.gslib.configuration.json.SerializableIntSet;
+import com.github.groomon.gslib.configuration.json.SerializableLongSet;
+import com.github.groomon.gslib.configuration.json.SerializableSet;
+import com.github.groomon.gslib.configuration.json.SerializableUuidSet;
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A configuration stored in a compact binary format, for files which are read and written by plugins only.
+ * <p>
+ * It stores the same values as {@link com.github.groomon.gslib.configuration.json.JsonConfiguration}, but every key
+ * and alias is only stored once, numbers are not formatted and parsed, and primitive lists are packed. Files can be
+ * converted between both formats with {@link BinaryConverter}. As strings, for {@link #saveToString()} and
+ * {@link #loadFromString(String)}, the contents are Base64 encoded.
+ */
+public class BinaryConfiguration extends FileConfiguration implements StreamingConfiguration {
+
+    private static final Logger LOG = Logger.getLogger(BinaryConfiguration.class.getName());
+
+    @NotNull
+    @Override
+    public String saveToString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            save(out);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    @Override
+    public void save(@NotNull OutputStream out) throws IOException {
+        Validate.notNull(out, "Stream cannot be null");
+        BinaryWriter writer = new BinaryWriter();
+        SerializationHelper.serialize(this, writer);
+        writer.writeTo(out);
+        out.flush();
+    }
+
+    @Override
+    public void save(@NotNull File file) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            save(out);
+        }
+    }
+
+    @Override
+    public void loadFromString(@NotNull String contents) throws InvalidConfigurationException {
+        Validate.notNull(contents, "Contents cannot be null");
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(contents.trim());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidConfigurationException("Contents are not Base64 encoded", e);
+        }
+        load(bytes);
+    }
+
+    @Override
+    public void load(@NotNull InputStream in) throws IOException, InvalidConfigurationException {
+        Validate.notNull(in, "Stream cannot be null");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        load(out.toByteArray());
+    }
+
+    @Override
+    public void load(@NotNull File file) throws IOException, InvalidConfigurationException {
+        Validate.notNull(file, "File cannot be null");
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        load(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Loads this configuration from the given bytes.
+     *
+     * @param contents The encoded configuration.
+     * @throws InvalidConfigurationException If the bytes do not contain a valid configuration.
+     */
+    public void load(@NotNull byte[] contents) throws InvalidConfigurationException {
+        Validate.notNull(contents, "Contents cannot be null");
+        new BinaryReader(ByteBuffer.wrap(contents)).readSection(this);
+    }
+
+    @Override
+    protected String buildHeader() {
+        // the binary format has no place for comments
+        return "";
+    }
+
+    /**
+     * Loads up a configuration from a binary file.
+     *
+     * @param file The file to load the configuration from.
+     * @return The configuration loaded from the file contents.
+     */
+    public static BinaryConfiguration loadConfiguration(@NotNull File file) {
+        BinaryConfiguration config = new BinaryConfiguration();
+        try {
+            config.load(file);
+        } catch (FileNotFoundException ex) {
+            LOG.log(Level.SEVERE, "Cannot find file " + file, ex);
+        } catch (IOException | InvalidConfigurationException ex) {
+            LOG.log(Level.SEVERE, "Cannot load " + file, ex);
+        }
+        return config;
+    }
+
+    public BinaryConfiguration() {
+        ConfigurationSerialization.registerClass(SerializableSet.class);
+        ConfigurationSerialization.registerClass(SerializableIntSet.class);
+        ConfigurationSerialization.registerClass(SerializableLongSet.class);
+        ConfigurationSerialization.registerClass(SerializableUuidSet.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import com.github.groomon.gslib.configuration.json.JsonReader;
+import com.github.groomon.gslib.configuration.json.JsonWriter;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Converts files between JSON and the binary format of {@link BinaryConfiguration}.
+ * <p>
+ * The documents are passed from one format to the other as they are read, without deserializing serialized objects,
+ * so files can be converted even when the classes stored in them are not registered.
+ */
+public final class BinaryConverter {
+
+    private BinaryConverter() {
+    }
+
+    /**
+     * Converts a JSON document to the binary format.
+     *
+     * @param in The JSON input. It is not closed.
+     * @param out The stream to write the binary document to. It is flushed, but not closed.
+     * @throws IOException If reading or writing fails.
+     * @throws InvalidConfigurationException If the input is not a valid JSON configuration.
+     */
+    public static void jsonToBinary(@NotNull Reader in, @NotNull OutputStream out) throws IOException, InvalidConfigurationException {
+        Validate.notNull(in, "Reader cannot be null");
+        Validate.notNull(out, "Stream cannot be null");
+        BinaryWriter writer = new BinaryWriter();
+        if (new JsonReader(in).transferDocument(writer)) {
+            writer.writeTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Converts a binary document to JSON.
+     *
+     * @param in The binary input. It is read completely, but not closed.
+     * @param out The writer to write the JSON document to. It is flushed, but not closed.
+     * @throws IOException If reading or writing fails.
+     * @throws InvalidConfigurationException If the input is not a valid binary configuration.
+     */
+    public static void binaryToJson(@NotNull InputStream in, @NotNull Writer out) throws IOException, InvalidConfigurationException {
+        Validate.notNull(in, "Stream cannot be null");
+        Validate.notNull(out, "Writer cannot be null");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        binaryToJson(bytes.toByteArray(), out);
+    }
+
+    /**
+     * Converts a JSON file to a binary file.
+     *
+     * @param json The JSON file to read.
+     * @param binary The binary file to write.
+     * @throws IOException If reading or writing fails.
+     * @throws InvalidConfigurationException If the JSON file is not a valid configuration.
+     */
+    public static void jsonToBinary(@NotNull File json, @NotNull File binary) throws IOException, InvalidConfigurationException {
+        Validate.notNull(json, "Input cannot be null");
+        Validate.notNull(binary, "Output cannot be null");
+        try (Reader in = new InputStreamReader(Files.newInputStream(json.toPath()), StandardCharsets.UTF_8);
+             OutputStream out = new FileOutputStream(binary)) {
+            jsonToBinary(in, out);
+        }
+    }
+
+    /**
+     * Converts a binary file to a JSON file.
+     *
+     * @param binary The binary file to read.
+     * @param json The JSON file to write.
+     * @throws IOException If reading or writing fails.
+     * @throws InvalidConfigurationException If the binary file is not a valid configuration.
+     */
+    public static void binaryToJson(@NotNull File binary, @NotNull File json) throws IOException, InvalidConfigurationException {
+        Validate.notNull(binary, "Input cannot be null");
+        Validate.notNull(json, "Output cannot be null");
+        byte[] contents = Files.readAllBytes(binary.toPath());
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(json), StandardCharsets.UTF_8))) {
+            binaryToJson(contents, out);
+        }
+    }
+
+    private static void binaryToJson(@NotNull byte[] contents, @NotNull Writer out) throws IOException, InvalidConfigurationException {
+        JsonWriter writer = new JsonWriter(out);
+        new BinaryReader(ByteBuffer.wrap(contents)).transferDocument(writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The constants of the binary format.
+ * <p>
+ * A file starts with the {@link #MAGIC} bytes and the {@link #VERSION}, followed by the key table: the number of keys
+ * and the keys themselves as strings. Keys and the aliases of serialized objects are referred to by their index in
+ * this table. The table is followed by the root map.
+ * <p>
+ * Every value starts with its tag. Counts, lengths and key indices are unsigned varints, ints and longs are zigzag
+ * encoded varints, and floating point numbers are stored as their IEEE 754 bits in big-endian order. Strings are
+ * stored as the length of their UTF-8 encoding followed by the encoded bytes. Lists are followed by their elements and
+ * terminated by {@link #END}. Map entries are stored as the key index plus one followed by the value, and are
+ * terminated by a zero.
+ */
+final class BinaryFormat {
+
+    static final byte[] MAGIC = "GSBC".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int DOUBLE = 5;
+    static final int FLOAT = 6;
+    static final int SHORT = 7;
+    static final int BYTE = 8;
+    /**
+     * A {@link java.math.BigInteger}, stored as the length and bytes of its two's complement representation.
+     */
+    static final int BIG_INTEGER = 9;
+    /**
+     * Any other number, stored as its string representation and read back the same way as from JSON.
+     */
+    static final int NUMBER = 10;
+    static final int STRING = 11;
+    static final int LIST = 12;
+    static final int MAP = 13;
+    /**
+     * A map of a serialized object, starting with the index of its alias.
+     */
+    static final int SERIALIZED = 14;
+    /**
+     * Packed primitive lists, starting with their size.
+     */
+    static final int INT_ARRAY = 15;
+    static final int LONG_ARRAY = 16;
+    static final int DOUBLE_ARRAY = 17;
+    static final int END = 0xFF;
+
+    private BinaryFormat() {
+    }
+}
@@ -0,0 +1,567 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import com.github.groomon.gslib.configuration.json.JsonReader;
+import com.github.groomon.gslib.configuration.json.SerializationCodec;
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import com.github.groomon.gslib.configuration.json.SerializationSink;
+import com.github.groomon.gslib.configuration.json.SerializationSource;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the binary format described in {@link BinaryFormat} from a {@link ByteBuffer}.
+ * <p>
+ * Maps are built into {@link ConfigurationSection}s as they are read and serialized objects are deserialized as soon
+ * as they are complete, the same way {@link JsonReader} does.
+ */
+public class BinaryReader {
+
+    @NotNull
+    private final ByteBuffer in;
+    @NotNull
+    private final KeyTable keys;
+
+    /**
+     * Reads the header and the key table.
+     *
+     * @param in The buffer to read from, starting at its current position.
+     * @throws InvalidConfigurationException If the buffer does not start with a valid header.
+     */
+    public BinaryReader(@NotNull ByteBuffer in) throws InvalidConfigurationException {
+        this.in = in;
+        this.keys = readHeader(in);
+    }
+
+    /**
+     * Continues reading from the given position, using the key table which has already been read.
+     */
+    BinaryReader(@NotNull ByteBuffer in, @NotNull KeyTable keys) {
+        this.in = in;
+        this.keys = keys;
+    }
+
+    /**
+     * Reads the header and the key table, leaving the buffer at the root value.
+     */
+    @NotNull
+    static KeyTable readHeader(@NotNull ByteBuffer in) throws InvalidConfigurationException {
+        if (!in.hasRemaining()) {
+            return KeyTable.EMPTY;
+        }
+        try {
+            for (byte b : BinaryFormat.MAGIC) {
+                if (in.get() != b) {
+                    throw new InvalidConfigurationException("Not a binary configuration.");
+                }
+            }
+            int version = in.get() & 0xFF;
+            if (version != BinaryFormat.VERSION) {
+                throw new InvalidConfigurationException("Unsupported binary configuration version " + version + ".");
+            }
+            return KeyTable.read(in);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new InvalidConfigurationException("Invalid binary configuration: truncated header.", e);
+        }
+    }
+
+    /**
+     * Reads a document whose root is a map into the given section.
+     *
+     * @param section The section to fill.
+     * @return False if the input was empty, true otherwise.
+     * @throws InvalidConfigurationException If the input is not valid.
+     */
+    public boolean readSection(@NotNull ConfigurationSection section) throws InvalidConfigurationException {
+        if (isEmpty()) {
+            return false;
+        }
+        try {
+            int tag = readTag();
+            if (tag == BinaryFormat.MAP) {
+                readEntries(section, null, null);
+            } else if (tag == BinaryFormat.SERIALIZED) {
+                // a serialized object at the top level, stored the same way as by JsonConfiguration
+                Object result = readSerialized();
+                for (String existing : section.getKeys(false)) {
+                    section.set(existing, null);
+                }
+                section.set("", result);
+            } else {
+                throw new InvalidConfigurationException("Top level is not a Map.");
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw error("truncated or corrupted data", e);
+        }
+        if (in.hasRemaining()) {
+            throw error("unexpected data after the root map", null);
+        }
+        return true;
+    }
+
+    /**
+     * Passes a document on to the given sink, without deserializing serialized objects.
+     *
+     * @param sink The sink receiving the document.
+     * @return False if the input was empty, true otherwise.
+     * @throws IOException If the sink throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid.
+     */
+    public boolean transferDocument(@NotNull SerializationSink sink) throws IOException, InvalidConfigurationException {
+        if (isEmpty()) {
+            return false;
+        }
+        try {
+            int tag = readTag();
+            if (tag != BinaryFormat.MAP && tag != BinaryFormat.SERIALIZED) {
+                throw new InvalidConfigurationException("Top level is not a Map.");
+            }
+            transfer(tag, sink);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw error("truncated or corrupted data", e);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the input is empty. A header is always followed by the root value, so input which ends right
+     * after it has been cut off.
+     */
+    private boolean isEmpty() throws InvalidConfigurationException {
+        if (in.hasRemaining()) {
+            return false;
+        }
+        if (keys != KeyTable.EMPTY) {
+            throw error("missing root value", null);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the entries of a map into a section. The section is only created when the map turns out not to contain a
+     * type key.
+     *
+     * @param section The section to read into, or null to create it as {@code key} in {@code parent}.
+     */
+    private void readEntries(@Nullable ConfigurationSection section, @Nullable ConfigurationSection parent,
+                             @Nullable String key) throws InvalidConfigurationException {
+        int id = readVarInt();
+        if (id == 0) {
+            if (section == null) {
+                parent.createSection(key);
+            }
+            return;
+        }
+        do {
+            String entryKey = keys.get(id - 1);
+            if (entryKey.equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                // a type key which is not the first key, read the rest as a map
+                Map<String, Object> map = section == null ? new LinkedHashMap<>() : toMap(section);
+                map.put(entryKey, readValue(readTag()));
+                readMapEntries(map);
+                Object result = SerializationHelper.deserializeObject(map);
+                if (section == null) {
+                    parent.set(key, result);
+                } else if (section.getParent() == null) {
+                    for (String existing : section.getKeys(false)) {
+                        section.set(existing, null);
+                    }
+                    section.set("", result);
+                } else {
+                    section.getParent().set(section.getName(), result);
+                }
+                return;
+            }
+            if (section == null) {
+                section = parent.createSection(key);
+            }
+            int tag = readTag();
+            if (tag == BinaryFormat.MAP) {
+                readEntries(null, section, entryKey);
+            } else {
+                section.set(entryKey, readValue(tag));
+            }
+            id = readVarInt();
+        } while (id != 0);
+    }
+
+    @Nullable
+    Object readValue(int tag) throws InvalidConfigurationException {
+        switch (tag) {
+            case BinaryFormat.NULL:
+                return null;
+            case BinaryFormat.FALSE:
+                return Boolean.FALSE;
+            case BinaryFormat.TRUE:
+                return Boolean.TRUE;
+            case BinaryFormat.INT:
+                return readZigZagInt();
+            case BinaryFormat.LONG:
+                return readZigZagLong();
+            case BinaryFormat.DOUBLE:
+                return in.getDouble();
+            case BinaryFormat.FLOAT:
+                return in.getFloat();
+            case BinaryFormat.SHORT:
+                return (short) readZigZagInt();
+            case BinaryFormat.BYTE:
+                return in.get();
+            case BinaryFormat.BIG_INTEGER:
+                return readBigInteger();
+            case BinaryFormat.NUMBER:
+                return readNumber();
+            case BinaryFormat.STRING:
+                return readString();
+            case BinaryFormat.LIST: {
+                List<Object> list = new ArrayList<>();
+                for (int element = readTag(); element != BinaryFormat.END; element = readTag()) {
+                    list.add(readValue(element));
+                }
+                return list;
+            }
+            case BinaryFormat.MAP: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                readMapEntries(map);
+                return SerializationHelper.deserializeObject(map);
+            }
+            case BinaryFormat.SERIALIZED:
+                return readSerialized();
+            case BinaryFormat.INT_ARRAY: {
+                int[] values = new int[readLength(1)];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readZigZagInt();
+                }
+                return IntArrayList.wrap(values, values.length);
+            }
+            case BinaryFormat.LONG_ARRAY: {
+                long[] values = new long[readLength(1)];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readZigZagLong();
+                }
+                return LongArrayList.wrap(values, values.length);
+            }
+            case BinaryFormat.DOUBLE_ARRAY: {
+                double[] values = new double[readLength(8)];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.getDouble();
+                }
+                return DoubleArrayList.wrap(values, values.length);
+            }
+            default:
+                throw error("unknown tag " + tag, null);
+        }
+    }
+
+    @Nullable
+    private Object readSerialized() throws InvalidConfigurationException {
+        String alias = keys.get(readVarInt());
+        SerializationCodec<?> codec = SerializationHelper.getCodec(alias);
+        if (codec != null) {
+            try {
+                return SerializationHelper.read(codec, new EntrySource());
+            } catch (IOException e) {
+                // the entries are read from a buffer
+                throw new IllegalStateException(e);
+            }
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+        readMapEntries(map);
+        return SerializationHelper.deserializeObject(map);
+    }
+
+    private void readMapEntries(@NotNull Map<String, Object> map) throws InvalidConfigurationException {
+        for (int id = readVarInt(); id != 0; id = readVarInt()) {
+            String key = keys.get(id - 1);
+            map.put(key, readValue(readTag()));
+        }
+    }
+
+    private void transfer(int tag, @NotNull SerializationSink sink) throws IOException, InvalidConfigurationException {
+        switch (tag) {
+            case BinaryFormat.LIST:
+                sink.beginList(-1);
+                for (int element = readTag(); element != BinaryFormat.END; element = readTag()) {
+                    transfer(element, sink);
+                }
+                sink.endList();
+                break;
+            case BinaryFormat.MAP:
+            case BinaryFormat.SERIALIZED:
+                sink.beginMap(-1);
+                if (tag == BinaryFormat.SERIALIZED) {
+                    sink.key(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+                    sink.value(keys.get(readVarInt()));
+                }
+                for (int id = readVarInt(); id != 0; id = readVarInt()) {
+                    sink.key(keys.get(id - 1));
+                    transfer(readTag(), sink);
+                }
+                sink.endMap();
+                break;
+            default:
+                SerializationHelper.serialize(readValue(tag), sink);
+        }
+    }
+
+    @NotNull
+    private static Map<String, Object> toMap(@NotNull ConfigurationSection section) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+            Object value = entry.getValue();
+            map.put(entry.getKey(), value instanceof ConfigurationSection ? toMap((ConfigurationSection) value) : value);
+        }
+        return map;
+    }
+
+    /**
+     * Moves past a value without decoding it.
+     */
+    void skipValue(int tag) throws InvalidConfigurationException {
+        switch (tag) {
+            case BinaryFormat.NULL:
+            case BinaryFormat.FALSE:
+            case BinaryFormat.TRUE:
+                break;
+            case BinaryFormat.INT:
+            case BinaryFormat.SHORT:
+            case BinaryFormat.LONG:
+                readVarLong();
+                break;
+            case BinaryFormat.DOUBLE:
+                skip(8);
+                break;
+            case BinaryFormat.FLOAT:
+                skip(4);
+                break;
+            case BinaryFormat.BYTE:
+                skip(1);
+                break;
+            case BinaryFormat.BIG_INTEGER:
+            case BinaryFormat.NUMBER:
+            case BinaryFormat.STRING:
+                skip(readLength(1));
+                break;
+            case BinaryFormat.LIST:
+                for (int element = readTag(); element != BinaryFormat.END; element = readTag()) {
+                    skipValue(element);
+                }
+                break;
+            case BinaryFormat.SERIALIZED:
+                readVarInt();
+                // the entries follow like in a map
+            case BinaryFormat.MAP:
+                while (readVarInt() != 0) {
+                    skipValue(readTag());
+                }
+                break;
+            case BinaryFormat.INT_ARRAY:
+            case BinaryFormat.LONG_ARRAY:
+                for (int i = readLength(1); i > 0; i--) {
+                    readVarLong();
+                }
+                break;
+            case BinaryFormat.DOUBLE_ARRAY:
+                skip(readLength(8) * 8);
+                break;
+            default:
+                throw error("unknown tag " + tag, null);
+        }
+    }
+
+    /**
+     * Reads the length of a string or an array and checks it against the remaining input, so corrupted data cannot
+     * cause huge allocations.
+     *
+     * @param elementSize The minimum number of bytes each element takes.
+     */
+    private int readLength(int elementSize) throws InvalidConfigurationException {
+        int length = readVarInt();
+        if (length < 0 || length > in.remaining() / elementSize) {
+            throw error("invalid length " + length, null);
+        }
+        return length;
+    }
+
+    private void skip(int length) {
+        in.position(in.position() + length);
+    }
+
+    int position() {
+        return in.position();
+    }
+
+    int readTag() {
+        return in.get() & 0xFF;
+    }
+
+    int readVarInt() {
+        return readVarInt(in);
+    }
+
+    static int readVarInt(@NotNull ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private int readZigZagInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @NotNull
+    private BigInteger readBigInteger() throws InvalidConfigurationException {
+        byte[] bytes = new byte[readLength(1)];
+        in.get(bytes);
+        return new BigInteger(bytes);
+    }
+
+    @NotNull
+    private Object readNumber() throws InvalidConfigurationException {
+        String text = readString();
+        try {
+            Object value = new JsonReader(new StringReader(text)).readValue();
+            if (value instanceof Number) {
+                return value;
+            }
+        } catch (IOException e) {
+            // a StringReader does not throw
+        }
+        throw error("invalid number '" + text + "'", null);
+    }
+
+    @NotNull
+    private String readString() throws InvalidConfigurationException {
+        int length = readLength(1);
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The remaining entries of the serialized object being read, for codecs. Numbers and strings are read without
+     * boxing them.
+     */
+    private final class EntrySource implements SerializationSource {
+
+        // the tag of the value of the current entry
+        private int tag;
+        private boolean done;
+
+        @Nullable
+        @Override
+        public String nextKey() {
+            if (done) {
+                return null;
+            }
+            int id = readVarInt();
+            if (id == 0) {
+                done = true;
+                return null;
+            }
+            tag = readTag();
+            return keys.get(id - 1);
+        }
+
+        @Nullable
+        @Override
+        public Object readValue() throws InvalidConfigurationException {
+            return BinaryReader.this.readValue(tag);
+        }
+
+        @Override
+        public void skipValue() throws InvalidConfigurationException {
+            BinaryReader.this.skipValue(tag);
+        }
+
+        @Override
+        public int readInt() throws IOException, InvalidConfigurationException {
+            if (tag == BinaryFormat.INT || tag == BinaryFormat.SHORT) {
+                return readZigZagInt();
+            }
+            return SerializationSource.super.readInt();
+        }
+
+        @Override
+        public long readLong() throws IOException, InvalidConfigurationException {
+            if (tag == BinaryFormat.INT || tag == BinaryFormat.SHORT) {
+                return readZigZagInt();
+            } else if (tag == BinaryFormat.LONG) {
+                return readZigZagLong();
+            }
+            return SerializationSource.super.readLong();
+        }
+
+        @Override
+        public double readDouble() throws IOException, InvalidConfigurationException {
+            if (tag == BinaryFormat.DOUBLE) {
+                return in.getDouble();
+            }
+            return SerializationSource.super.readDouble();
+        }
+
+        @Nullable
+        @Override
+        public String readString() throws IOException, InvalidConfigurationException {
+            if (tag == BinaryFormat.STRING) {
+                return BinaryReader.this.readString();
+            }
+            return SerializationSource.super.readString();
+        }
+    }
+
+    @NotNull
+    InvalidConfigurationException error(@NotNull String message, @Nullable Throwable cause) {
+        InvalidConfigurationException e = new InvalidConfigurationException("Invalid binary configuration: " + message
+                + " at position " + in.position() + ".");
+        if (cause != null) {
+            e.initCause(cause);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,273 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import com.github.groomon.gslib.configuration.json.SerializationSink;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SerializationSink} encoding values in the binary format described in {@link BinaryFormat}.
+ * <p>
+ * The values are encoded into memory while the key table is collected, both are written by
+ * {@link #writeTo(OutputStream)} once the root value is complete.
+ */
+public class BinaryWriter implements SerializationSink {
+
+    private byte[] buffer = new byte[4096];
+    private int size;
+
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+
+    // set between beginMap and its first key, which decides whether it is a plain or a serialized map
+    private boolean mapPending;
+    // set after a type key, until the alias decides whether the map is a serialized map
+    private boolean aliasPending;
+
+    /**
+     * Writes the header, the key table and the encoded values to the stream.
+     *
+     * @param out The stream to write to. It is not flushed or closed.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+        BinaryWriter header = new BinaryWriter();
+        header.writeBytes(BinaryFormat.MAGIC, 0, BinaryFormat.MAGIC.length);
+        header.writeByte(BinaryFormat.VERSION);
+        header.writeVarInt(keys.size());
+        for (String key : keys) {
+            header.writeString(key);
+        }
+        out.write(header.buffer, 0, header.size);
+        out.write(buffer, 0, size);
+    }
+
+    @Override
+    public void beginMap(int size) throws IOException {
+        beforeValue();
+        mapPending = true;
+    }
+
+    @Override
+    public void key(@NotNull String key) throws IOException {
+        if (mapPending) {
+            mapPending = false;
+            if (key.equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                aliasPending = true;
+                return;
+            }
+            writeByte(BinaryFormat.MAP);
+        }
+        writeVarInt(keyId(key) + 1);
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        if (mapPending) {
+            mapPending = false;
+            writeByte(BinaryFormat.MAP);
+        }
+        writeByte(0);
+    }
+
+    @Override
+    public void beginList(int size) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.LIST);
+    }
+
+    @Override
+    public void endList() throws IOException {
+        writeByte(BinaryFormat.END);
+    }
+
+    @Override
+    public void nullValue() throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.NULL);
+    }
+
+    @Override
+    public void value(boolean value) throws IOException {
+        beforeValue();
+        writeByte(value ? BinaryFormat.TRUE : BinaryFormat.FALSE);
+    }
+
+    @Override
+    public void value(int value) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.INT);
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    @Override
+    public void value(long value) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.LONG);
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void value(double value) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.DOUBLE);
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void value(@NotNull Number value) throws IOException {
+        beforeValue();
+        if (value instanceof Float) {
+            writeByte(BinaryFormat.FLOAT);
+            writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            writeByte(BinaryFormat.SHORT);
+            int s = (Short) value;
+            writeVarInt((s << 1) ^ (s >> 31));
+        } else if (value instanceof Byte) {
+            writeByte(BinaryFormat.BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof BigInteger) {
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            writeByte(BinaryFormat.BIG_INTEGER);
+            writeVarInt(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        } else {
+            writeByte(BinaryFormat.NUMBER);
+            writeString(value.toString());
+        }
+    }
+
+    @Override
+    public void value(@NotNull String value) throws IOException {
+        if (aliasPending) {
+            aliasPending = false;
+            writeByte(BinaryFormat.SERIALIZED);
+            writeVarInt(keyId(value));
+            return;
+        }
+        beforeValue();
+        writeByte(BinaryFormat.STRING);
+        writeString(value);
+    }
+
+    @Override
+    public void value(@NotNull IntArrayList list) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.INT_ARRAY);
+        writeVarInt(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            int value = list.getInt(i);
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+    }
+
+    @Override
+    public void value(@NotNull LongArrayList list) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.LONG_ARRAY);
+        writeVarInt(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            long value = list.getLong(i);
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+    }
+
+    @Override
+    public void value(@NotNull DoubleArrayList list) throws IOException {
+        beforeValue();
+        writeByte(BinaryFormat.DOUBLE_ARRAY);
+        writeVarInt(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            writeLong(Double.doubleToRawLongBits(list.getDouble(i)));
+        }
+    }
+
+    /**
+     * Called before any value other than an alias. A type key followed by something other than an alias is written
+     * as a plain entry.
+     */
+    private void beforeValue() {
+        if (aliasPending) {
+            aliasPending = false;
+            writeByte(BinaryFormat.MAP);
+            writeVarInt(keyId(ConfigurationSerialization.SERIALIZED_TYPE_KEY) + 1);
+        }
+    }
+
+    private int keyId(@NotNull String key) {
+        Integer id = keyIds.get(key);
+        if (id == null) {
+            id = keys.size();
+            keys.add(key);
+            keyIds.put(key, id);
+        }
+        return id;
+    }
+
+    private void ensure(int count) {
+        if (size + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(size + count, buffer.length * 2));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeBytes(@NotNull byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void writeVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeString(@NotNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The key table of a binary configuration. Only the positions of the keys are read up front, the keys themselves are
+ * decoded the first time they are needed, and looking up the index of a key compares its encoded bytes.
+ */
+final class KeyTable {
+
+    static final KeyTable EMPTY = new KeyTable(ByteBuffer.allocate(0), new int[0], new int[0]);
+
+    @NotNull
+    private final ByteBuffer buffer;
+    @NotNull
+    private final int[] offsets;
+    @NotNull
+    private final int[] lengths;
+    // written racily, decoding a key twice is harmless
+    @NotNull
+    private final String[] decoded;
+    // open addressing table of the key indices plus one, built on the first lookup
+    private volatile int[] table;
+
+    private KeyTable(@NotNull ByteBuffer buffer, @NotNull int[] offsets, @NotNull int[] lengths) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.decoded = new String[offsets.length];
+    }
+
+    /**
+     * Reads the positions of the keys, starting at the current position of the buffer, and moves past the table.
+     */
+    @NotNull
+    static KeyTable read(@NotNull ByteBuffer in) throws InvalidConfigurationException {
+        int count = BinaryReader.readVarInt(in);
+        // every key takes at least the byte of its length
+        if (count < 0 || count > in.remaining()) {
+            throw new InvalidConfigurationException("Invalid binary configuration: invalid key count " + count + ".");
+        }
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = BinaryReader.readVarInt(in);
+            offsets[i] = in.position();
+            in.position(offsets[i] + lengths[i]);
+        }
+        return new KeyTable(in, offsets, lengths);
+    }
+
+    int size() {
+        return offsets.length;
+    }
+
+    @NotNull
+    String get(int id) {
+        String key = decoded[id];
+        if (key == null) {
+            if (buffer.hasArray()) {
+                key = new String(buffer.array(), buffer.arrayOffset() + offsets[id], lengths[id], StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[lengths[id]];
+                ByteBuffer view = buffer.duplicate();
+                view.position(offsets[id]);
+                view.get(bytes);
+                key = new String(bytes, StandardCharsets.UTF_8);
+            }
+            decoded[id] = key;
+        }
+        return key;
+    }
+
+    /**
+     * Looks up the index of a key.
+     *
+     * @return The index, or -1 if the key is not in the table.
+     */
+    int find(@NotNull String key) {
+        int[] table = this.table;
+        if (table == null) {
+            table = buildTable();
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        for (int slot = hash(bytes) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (matches(id, bytes)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    @NotNull
+    private synchronized int[] buildTable() {
+        int[] table = this.table;
+        if (table != null) {
+            return table;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, offsets.length * 2 - 1)) << 1;
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < offsets.length; id++) {
+            int slot = hash(id) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+        this.table = table;
+        return table;
+    }
+
+    private boolean matches(int id, @NotNull byte[] bytes) {
+        if (lengths[id] != bytes.length) {
+            return false;
+        }
+        int offset = offsets[id];
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(int id) {
+        int hash = 1;
+        int offset = offsets[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            hash = 31 * hash + buffer.get(offset + i);
+        }
+        return mix(hash);
+    }
+
+    private static int hash(@NotNull byte[] bytes) {
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,652 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read-only view of a file written by {@link BinaryConfiguration}, which is memory-mapped instead of being loaded.
+ * <p>
+ * Nothing but the positions of the keys is read when the file is opened. Values are decoded from the mapped file each
+ * time they are read, so the heap used does not grow with the size of the file, and the operating system keeps the
+ * parts of it which are read often in memory. Sections are views of the same file. Looking up a key in a map means
+ * scanning its entries, so for maps with many entries an index of the entries is built on the first lookup, which is
+ * kept in a cache of limited size.
+ * <p>
+ * The file must not be modified while it is mapped. A mapped configuration can be read from any thread without
+ * synchronization.
+ * <p>
+ * The mapping is released when the configuration is garbage collected, or right away by {@link #close()}. On Windows
+ * a mapped file cannot be replaced or deleted, so a mapped configuration should be closed before its file is saved
+ * again.
+ */
+public final class MappedConfiguration implements AutoCloseable {
+
+    /**
+     * The default number of map entries the index cache of a file may hold.
+     */
+    public static final int DEFAULT_INDEX_CACHE_SIZE = 1 << 18;
+
+    // maps with more entries are indexed on the first lookup
+    private static final int INDEX_THRESHOLD = 32;
+
+    @NotNull
+    private final Mapping mapping;
+    @NotNull
+    private final ByteBuffer buffer;
+    @NotNull
+    private final KeyTable keys;
+    @NotNull
+    private final IndexCache indexes;
+    private final char separator;
+    // the position of the first entry of the map of this section
+    private final int offset;
+
+    private MappedConfiguration(@NotNull Mapping mapping, @NotNull KeyTable keys, @NotNull IndexCache indexes,
+                                char separator, int offset) {
+        this.mapping = mapping;
+        this.buffer = mapping.buffer;
+        this.keys = keys;
+        this.indexes = indexes;
+        this.separator = separator;
+        this.offset = offset;
+    }
+
+    /**
+     * Maps a binary configuration file, using '.' as path separator.
+     *
+     * @param file The file to map.
+     * @return The root section of the file.
+     * @throws IOException If the file cannot be mapped.
+     * @throws InvalidConfigurationException If the file is not a binary configuration.
+     */
+    @NotNull
+    public static MappedConfiguration open(@NotNull File file) throws IOException, InvalidConfigurationException {
+        return open(file, '.', DEFAULT_INDEX_CACHE_SIZE);
+    }
+
+    /**
+     * Maps a binary configuration file.
+     *
+     * @param file The file to map.
+     * @param separator The path separator.
+     * @param indexCacheSize The number of map entries the indexes of large maps may hold in total, or 0 to always
+     *                       scan maps.
+     * @return The root section of the file.
+     * @throws IOException If the file cannot be mapped.
+     * @throws InvalidConfigurationException If the file is not a binary configuration.
+     */
+    @NotNull
+    public static MappedConfiguration open(@NotNull File file, char separator, int indexCacheSize)
+            throws IOException, InvalidConfigurationException {
+        Validate.notNull(file, "File cannot be null");
+        Validate.isTrue(indexCacheSize >= 0, "Index cache size cannot be negative");
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Cannot map " + file + ", it is larger than 2 GB");
+            }
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        Mapping mapping = new Mapping(buffer);
+        try {
+            KeyTable keys = BinaryReader.readHeader(buffer);
+            int root = buffer.position();
+            if (root < buffer.limit()) {
+                if ((buffer.get(root) & 0xFF) != BinaryFormat.MAP) {
+                    throw new InvalidConfigurationException("Top level of " + file + " is not a Map.");
+                }
+                root++;
+            }
+            // a header is always followed by the root map, which holds at least its end marker
+            if (keys != KeyTable.EMPTY && root >= buffer.limit()) {
+                throw new InvalidConfigurationException("Invalid binary configuration: " + file + " is truncated.");
+            }
+            return new MappedConfiguration(mapping, keys, new IndexCache(indexCacheSize), separator, root);
+        } catch (InvalidConfigurationException | RuntimeException e) {
+            mapping.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the mapping of the file, which closes this section and all other sections of the file. Waits for reads
+     * which are in progress on other threads, reading from any of the sections afterwards throws an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        mapping.close();
+    }
+
+    /**
+     * Gets the keys of this section.
+     *
+     * @param deep Whether to include the keys of all nested sections, as paths.
+     * @return An unmodifiable set of the keys.
+     */
+    @NotNull
+    public Set<String> getKeys(boolean deep) {
+        Set<String> result = new LinkedHashSet<>();
+        mapping.acquire();
+        try {
+            if (!isEmpty()) {
+                BinaryReader reader = reader(offset);
+                try {
+                    collectKeys(reader, result, "", deep);
+                } catch (InvalidConfigurationException | RuntimeException e) {
+                    throw corrupted(reader, e);
+                }
+            }
+        } finally {
+            mapping.release();
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private void collectKeys(@NotNull BinaryReader reader, @NotNull Set<String> result, @NotNull String prefix,
+                             boolean deep) throws InvalidConfigurationException {
+        for (int id = reader.readVarInt(); id != 0; id = reader.readVarInt()) {
+            String path = prefix + keys.get(id - 1);
+            result.add(path);
+            int tag = reader.readTag();
+            if (deep && tag == BinaryFormat.MAP) {
+                collectKeys(reader, result, path + separator, true);
+            } else {
+                reader.skipValue(tag);
+            }
+        }
+    }
+
+    /**
+     * Gets the values of this section. All of them are decoded, only nested sections are views of the file.
+     *
+     * @param deep Whether to include the values of all nested sections, by their paths.
+     * @return An unmodifiable map of the values.
+     */
+    @NotNull
+    public Map<String, Object> getValues(boolean deep) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        mapping.acquire();
+        try {
+            if (!isEmpty()) {
+                BinaryReader reader = reader(offset);
+                try {
+                    collectValues(reader, result, "", deep);
+                } catch (InvalidConfigurationException | RuntimeException e) {
+                    throw corrupted(reader, e);
+                }
+            }
+        } finally {
+            mapping.release();
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void collectValues(@NotNull BinaryReader reader, @NotNull Map<String, Object> result,
+                               @NotNull String prefix, boolean deep) throws InvalidConfigurationException {
+        for (int id = reader.readVarInt(); id != 0; id = reader.readVarInt()) {
+            String path = prefix + keys.get(id - 1);
+            int tag = reader.readTag();
+            if (tag == BinaryFormat.MAP) {
+                result.put(path, section(reader.position()));
+                if (deep) {
+                    collectValues(reader, result, path + separator, true);
+                } else {
+                    reader.skipValue(tag);
+                }
+            } else {
+                result.put(path, reader.readValue(tag));
+            }
+        }
+    }
+
+    public boolean contains(@NotNull String path) {
+        Validate.notNull(path, "Path cannot be null");
+        mapping.acquire();
+        try {
+            return find(path) != -1;
+        } finally {
+            mapping.release();
+        }
+    }
+
+    /**
+     * Same as {@link #contains(String)}, as a mapped configuration has no defaults.
+     */
+    public boolean isSet(@NotNull String path) {
+        return contains(path);
+    }
+
+    /**
+     * Gets the value at the given path, decoding it from the file.
+     *
+     * @param path The path of the value.
+     * @return The value, a {@link MappedConfiguration} for sections, or null if there is none.
+     */
+    @Nullable
+    public Object get(@NotNull String path) {
+        return get(path, null);
+    }
+
+    /**
+     * Gets the value at the given path, decoding it from the file.
+     *
+     * @param path The path of the value.
+     * @param def The value returned if the path is not set.
+     * @return The value, a {@link MappedConfiguration} for sections.
+     */
+    @Nullable
+    public Object get(@NotNull String path, @Nullable Object def) {
+        Validate.notNull(path, "Path cannot be null");
+        if (path.isEmpty()) return this;
+        mapping.acquire();
+        try {
+            int position = find(path);
+            if (position == -1) return def;
+            int tag = buffer.get(position) & 0xFF;
+            if (tag == BinaryFormat.MAP) return section(position + 1);
+            BinaryReader reader = reader(position + 1);
+            try {
+                return reader.readValue(tag);
+            } catch (InvalidConfigurationException | RuntimeException e) {
+                throw corrupted(reader, e);
+            }
+        } finally {
+            mapping.release();
+        }
+    }
+
+    /**
+     * Finds the value at the given path. The mapping has to be acquired.
+     *
+     * @return The position of the tag of the value, or -1 if there is none.
+     */
+    private int find(@NotNull String path) {
+        if (isEmpty()) return -1;
+        int map = offset;
+        int start = 0;
+        for (int index = path.indexOf(separator); index != -1; index = path.indexOf(separator, start)) {
+            int position = lookup(map, path.substring(start, index));
+            if (position == -1 || (buffer.get(position) & 0xFF) != BinaryFormat.MAP) return -1;
+            map = position + 1;
+            start = index + 1;
+        }
+        return lookup(map, path.substring(start));
+    }
+
+    /**
+     * Finds the value of a key in a map.
+     *
+     * @param map The position of the first entry of the map.
+     * @return The position of the tag of the value, or -1 if there is none.
+     */
+    private int lookup(int map, @NotNull String key) {
+        int id = keys.find(key);
+        if (id == -1) return -1;
+        MapIndex index = indexes.get(map);
+        if (index != null) return index.get(id);
+
+        BinaryReader reader = reader(map);
+        try {
+            for (int count = 0; ; count++) {
+                int entry = reader.readVarInt();
+                if (entry == 0) return -1;
+                if (count == INDEX_THRESHOLD && indexes.isEnabled()) {
+                    return indexes.put(map, buildIndex(map)).get(id);
+                }
+                int position = reader.position();
+                int tag = reader.readTag();
+                if (entry - 1 == id) return position;
+                reader.skipValue(tag);
+            }
+        } catch (InvalidConfigurationException | RuntimeException e) {
+            throw corrupted(reader, e);
+        }
+    }
+
+    @NotNull
+    private MapIndex buildIndex(int map) throws InvalidConfigurationException {
+        MapIndex index = new MapIndex(INDEX_THRESHOLD * 2);
+        BinaryReader reader = reader(map);
+        for (int id = reader.readVarInt(); id != 0; id = reader.readVarInt()) {
+            int position = reader.position();
+            reader.skipValue(reader.readTag());
+            index.put(id - 1, position);
+        }
+        return index;
+    }
+
+    @Nullable
+    public String getString(@NotNull String path) {
+        Object value = get(path);
+        return value == null ? null : value.toString();
+    }
+
+    @Nullable
+    public String getString(@NotNull String path, @Nullable String def) {
+        Object value = get(path, def);
+        return value == null ? null : value.toString();
+    }
+
+    public int getInt(@NotNull String path) {
+        return getInt(path, 0);
+    }
+
+    public int getInt(@NotNull String path, int def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    public long getLong(@NotNull String path) {
+        return getLong(path, 0);
+    }
+
+    public long getLong(@NotNull String path, long def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+
+    public double getDouble(@NotNull String path) {
+        return getDouble(path, 0);
+    }
+
+    public double getDouble(@NotNull String path, double def) {
+        Object value = get(path, def);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    public boolean getBoolean(@NotNull String path) {
+        return getBoolean(path, false);
+    }
+
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        Object value = get(path, def);
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+
+    /**
+     * @return A new list decoded from the file, or null if the path does not point to a list. Packed lists are
+     * returned as primitive lists.
+     */
+    @Nullable
+    public List<?> getList(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof List ? (List<?>) value : null;
+    }
+
+    @Nullable
+    public Vector getVector(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof Vector ? (Vector) value : null;
+    }
+
+    @Nullable
+    public MappedConfiguration getConfigurationSection(@NotNull String path) {
+        Object value = get(path);
+        return value instanceof MappedConfiguration ? (MappedConfiguration) value : null;
+    }
+
+    @Nullable
+    public <T> T getObject(@NotNull String path, @NotNull Class<T> type) {
+        Validate.notNull(type, "Type cannot be null");
+        Object value = get(path);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    private boolean isEmpty() {
+        // an empty file has no root map
+        return offset >= buffer.limit();
+    }
+
+    @NotNull
+    private MappedConfiguration section(int offset) {
+        return new MappedConfiguration(mapping, keys, indexes, separator, offset);
+    }
+
+    @NotNull
+    private BinaryReader reader(int position) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        return new BinaryReader(view, keys);
+    }
+
+    @NotNull
+    private static IllegalStateException corrupted(@NotNull BinaryReader reader, @NotNull Exception e) {
+        if (e instanceof InvalidConfigurationException) {
+            return new IllegalStateException(e.getMessage(), e);
+        }
+        if (e instanceof BufferUnderflowException || e instanceof IndexOutOfBoundsException
+                || e instanceof IllegalArgumentException) {
+            return new IllegalStateException(reader.error("truncated or corrupted data", e).getMessage(), e);
+        }
+        throw (RuntimeException) e;
+    }
+
+    /**
+     * The positions of the values of a map, by the indices of their keys.
+     */
+    private static final class MapIndex {
+
+        // open addressing table of the key indices plus one, and the positions of their values
+        @NotNull
+        private int[] ids;
+        @NotNull
+        private int[] positions;
+        private int size;
+        // whether the index has been used since the last eviction
+        volatile boolean used;
+
+        MapIndex(int capacity) {
+            ids = new int[capacity];
+            positions = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int id) {
+            int mask = ids.length - 1;
+            for (int slot = mix(id) & mask; ids[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slot] == id + 1) return positions[slot];
+            }
+            return -1;
+        }
+
+        void put(int id, int position) {
+            if (size * 2 >= ids.length) {
+                int[] oldIds = ids;
+                int[] oldPositions = positions;
+                ids = new int[oldIds.length * 2];
+                positions = new int[oldIds.length * 2];
+                size = 0;
+                for (int i = 0; i < oldIds.length; i++) {
+                    if (oldIds[i] != 0) insert(oldIds[i], oldPositions[i]);
+                }
+            }
+            insert(id + 1, position);
+        }
+
+        private void insert(int key, int position) {
+            int mask = ids.length - 1;
+            int slot = mix(key - 1) & mask;
+            while (ids[slot] != 0 && ids[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            // a duplicate key keeps the last value, the same way loading the file does
+            if (ids[slot] == 0) size++;
+            ids[slot] = key;
+            positions[slot] = position;
+        }
+
+        private static int mix(int id) {
+            int hash = id * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * The indexes of the large maps of a file. Lookups do not lock, and once the indexes hold more entries than
+     * allowed, the ones which have not been used since the last eviction are dropped.
+     */
+    private static final class IndexCache {
+
+        private final int maxEntries;
+        @NotNull
+        private final ConcurrentHashMap<Integer, MapIndex> indexes = new ConcurrentHashMap<>();
+        @NotNull
+        private final AtomicInteger entries = new AtomicInteger();
+
+        IndexCache(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        boolean isEnabled() {
+            return maxEntries > 0;
+        }
+
+        @Nullable
+        MapIndex get(int map) {
+            if (maxEntries == 0) return null;
+            MapIndex index = indexes.get(map);
+            // only written once per eviction, so lookups do not keep writing to shared memory
+            if (index != null && !index.used) index.used = true;
+            return index;
+        }
+
+        @NotNull
+        MapIndex put(int map, @NotNull MapIndex index) {
+            index.used = true;
+            MapIndex previous = indexes.put(map, index);
+            int total = entries.addAndGet(index.size() - (previous == null ? 0 : previous.size()));
+            if (total > maxEntries) {
+                evict(index);
+            }
+            return index;
+        }
+
+        /**
+         * Drops the indexes which have not been used since the last eviction, and marks the others as unused. If that
+         * is not enough, the indexes marked on the first pass are dropped as well. The given index is always kept,
+         * even if it is too large on its own.
+         */
+        private synchronized void evict(@NotNull MapIndex keep) {
+            for (int pass = 0; pass < 2 && entries.get() > maxEntries; pass++) {
+                for (Map.Entry<Integer, MapIndex> entry : indexes.entrySet()) {
+                    MapIndex index = entry.getValue();
+                    if (index == keep) continue;
+                    if (index.used) {
+                        index.used = false;
+                    } else if (indexes.remove(entry.getKey(), index)) {
+                        if (entries.addAndGet(-index.size()) <= maxEntries) return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The mapped file, shared by all sections of it. Reads acquire the mapping, so it is only unmapped once no thread
+     * is reading from it anymore, as accessing an unmapped buffer crashes the JVM.
+     */
+    private static final class Mapping {
+
+        @NotNull
+        final MappedByteBuffer buffer;
+        @NotNull
+        private final AtomicInteger readers = new AtomicInteger();
+        private volatile boolean closed;
+
+        Mapping(@NotNull MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Registers a read, which has to be followed by {@link #release()}.
+         *
+         * @throws IllegalStateException If the mapping has been closed.
+         */
+        void acquire() {
+            if (!closed) {
+                readers.incrementAndGet();
+                // closing sets the flag before it checks the readers, so one of both sees the other
+                if (!closed) return;
+                release();
+            }
+            throw new IllegalStateException("Mapped configuration has been closed");
+        }
+
+        void release() {
+            if (readers.decrementAndGet() == 0 && closed) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            boolean interrupted = false;
+            while (readers.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            unmap(buffer);
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+
+        /**
+         * Releases the mapping right away instead of once the buffer is garbage collected. There is no public API for
+         * this, so it uses {@code Unsafe.invokeCleaner} on Java 9 and later, and the cleaner of the buffer before.
+         */
+        private static void unmap(@NotNull MappedByteBuffer buffer) {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner;
+                try {
+                    invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                } catch (NoSuchMethodException e) {
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                    return;
+                }
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                invokeCleaner.invoke(field.get(null), buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // the mapping is released once the buffer is garbage collected
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains classes related to creating a Configuration based on a compact binary format, for files which are not
+ * edited by hand.
+ */
+package com.github.groomon.gslib.configuration.binary;
@@ -0,0 +1,302 @@
+package com.github.groomon.gslib.configuration.binding;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the implementations of interfaces annotated with {@link ConfigBinding}. It is registered as annotation
+ * processor in this library, so it runs whenever a plugin depending on it is compiled.
+ */
+@SupportedAnnotationTypes("com.github.groomon.gslib.configuration.binding.ConfigBinding")
+public class BindingProcessor extends AbstractProcessor {
+
+    private static final String FILE = "com.github.groomon.gslib.configuration.ConfigurationFile";
+    private static final String BINDING = "com.github.groomon.gslib.configuration.ConfigurationBinding";
+
+    // the getters of ConfigurationFile for lists, by element type
+    private static final Map<String, String> LIST_GETTERS = new HashMap<>();
+
+    static {
+        LIST_GETTERS.put("java.lang.String", "getStringList");
+        LIST_GETTERS.put("java.lang.Integer", "getIntegerList");
+        LIST_GETTERS.put("java.lang.Long", "getLongList");
+        LIST_GETTERS.put("java.lang.Double", "getDoubleList");
+        LIST_GETTERS.put("java.lang.Float", "getFloatList");
+        LIST_GETTERS.put("java.lang.Short", "getShortList");
+        LIST_GETTERS.put("java.lang.Byte", "getByteList");
+        LIST_GETTERS.put("java.lang.Boolean", "getBooleanList");
+        LIST_GETTERS.put("java.lang.Character", "getCharacterList");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(ConfigBinding.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error("@ConfigBinding can only be used on interfaces", element);
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<ExecutableElement> methods = validate(type);
+            if (methods == null) {
+                continue;
+            }
+            try {
+                generate(type, methods);
+            } catch (IOException e) {
+                error("Could not write the binding of " + type + ": " + e.getMessage(), type);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the interface and collects the methods to implement, reporting errors to the compiler.
+     *
+     * @return The methods, or null if the interface cannot be bound.
+     */
+    @Nullable
+    private List<ExecutableElement> validate(@NotNull TypeElement type) {
+        boolean valid = true;
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error("A bound interface cannot be private", type);
+            valid = false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error("A bound interface cannot have type parameters", type);
+            valid = false;
+        }
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            Element owner = method.getEnclosingElement();
+            if (modifiers.contains(Modifier.STATIC) || owner.getKind() != ElementKind.INTERFACE) {
+                // methods of Object are implemented already
+                continue;
+            }
+            ConfigValue value = method.getAnnotation(ConfigValue.class);
+            if (value == null) {
+                if (modifiers.contains(Modifier.ABSTRACT)) {
+                    error("An abstract method of a bound interface needs @ConfigValue", method);
+                    valid = false;
+                }
+                continue;
+            }
+            if (!method.getParameters().isEmpty() || !method.getTypeParameters().isEmpty()) {
+                error("A method with @ConfigValue cannot have parameters", method);
+                valid = false;
+            } else if (method.getReturnType().getKind() == TypeKind.VOID || method.getReturnType().getKind() == TypeKind.CHAR
+                    || method.getReturnType().getKind() == TypeKind.TYPEVAR) {
+                error("Values of type " + method.getReturnType() + " cannot be bound", method);
+                valid = false;
+            } else if (method.getReturnType().getKind() == TypeKind.ARRAY && arrayGetter(method.getReturnType()) == null) {
+                error("Only int[], long[] and double[] arrays can be bound", method);
+                valid = false;
+            }
+            methods.add(method);
+        }
+        return valid ? methods : null;
+    }
+
+    private void generate(@NotNull TypeElement type, @NotNull List<ExecutableElement> methods) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String name = bindingName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n * Generated from {@link ").append(typeName).append("} by ")
+                .append(BindingProcessor.class.getSimpleName()).append(", do not edit.\n */\n");
+        if (type.getModifiers().contains(Modifier.PUBLIC)) {
+            out.append("public ");
+        }
+        out.append("final class ").append(name).append(" implements ").append(typeName).append(" {\n\n");
+
+        for (ExecutableElement method : methods) {
+            out.append("    private final ").append(method.getReturnType()).append(' ').append(method.getSimpleName()).append(";\n");
+        }
+        out.append('\n');
+
+        out.append("    @SuppressWarnings(\"unchecked\")\n");
+        out.append("    public ").append(name).append('(').append(FILE).append(" file) {\n");
+        for (ExecutableElement method : methods) {
+            out.append("        this.").append(method.getSimpleName()).append(" = ").append(readExpression(type, method)).append(";\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    /**\n     * Binds a new instance to the file, which is rebuilt whenever the file changes.\n     */\n");
+        out.append("    public static ").append(BINDING).append('<').append(typeName).append("> bind(").append(FILE).append(" file) {\n");
+        out.append("        return file.bind(").append(name).append("::new);\n");
+        out.append("    }\n");
+
+        for (ExecutableElement method : methods) {
+            String field = method.getSimpleName().toString();
+            out.append("\n    @Override\n");
+            out.append("    public ").append(method.getReturnType()).append(' ').append(field).append("() {\n");
+            if (method.getReturnType().getKind() == TypeKind.ARRAY) {
+                out.append("        return ").append(field).append(" == null ? null : ").append(field).append(".clone();\n");
+            } else {
+                out.append("        return ").append(field).append(";\n");
+            }
+            out.append("    }\n");
+        }
+
+        out.append("\n    @Override\n");
+        out.append("    public String toString() {\n");
+        out.append("        return \"").append(type.getSimpleName()).append("{\"");
+        for (int i = 0; i < methods.size(); i++) {
+            String field = methods.get(i).getSimpleName().toString();
+            out.append("\n                + \"").append(i == 0 ? "" : ", ").append(field).append("=\" + ");
+            out.append(methods.get(i).getReturnType().getKind() == TypeKind.ARRAY ? "java.util.Arrays.toString(" + field + ")" : field);
+        }
+        out.append("\n                + \"}\";\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * Creates the expression reading the value of a method from the file, falling back to the default method if
+     * there is one.
+     */
+    @NotNull
+    private String readExpression(@NotNull TypeElement type, @NotNull ExecutableElement method) {
+        String path = literal(method.getAnnotation(ConfigValue.class).value());
+        String def = method.isDefault() ? type.getQualifiedName() + ".super." + method.getSimpleName() + "()" : null;
+        TypeMirror returnType = method.getReturnType();
+        switch (returnType.getKind()) {
+            case INT:
+                return getter("getInt", path, def);
+            case LONG:
+                return getter("getLong", path, def);
+            case DOUBLE:
+                return getter("getDouble", path, def);
+            case BOOLEAN:
+                return getter("getBoolean", path, def);
+            case FLOAT:
+                return "(float) " + getter("getDouble", path, def);
+            case SHORT:
+                return "(short) " + getter("getInt", path, def);
+            case BYTE:
+                return "(byte) " + getter("getInt", path, def);
+            case ARRAY:
+                return orDefault("file." + arrayGetter(returnType) + "(" + path + ")", path, def);
+            default:
+        }
+        String erasure = processingEnv.getTypeUtils().erasure(returnType).toString();
+        Element element = processingEnv.getTypeUtils().asElement(returnType);
+        if (erasure.equals("java.lang.String")) {
+            return getter("getString", path, def);
+        } else if (element.getKind() == ElementKind.ENUM) {
+            return BINDING + ".enumValue(file.getString(" + path + "), " + erasure + ".class, " + (def == null ? "null" : def) + ")";
+        } else if (erasure.equals("java.util.List")) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) returnType).getTypeArguments();
+            String getter = "getList";
+            if (arguments.size() == 1) {
+                String elementType = processingEnv.getTypeUtils().erasure(arguments.get(0)).toString();
+                if (LIST_GETTERS.containsKey(elementType)) {
+                    getter = LIST_GETTERS.get(elementType);
+                } else if (elementType.equals("java.util.Map")) {
+                    getter = "getMapList";
+                }
+            }
+            return orDefault("(java.util.List) " + BINDING + ".list(file." + getter + "(" + path + "))", path, def);
+        }
+        return def == null ? "file.getObject(" + path + ", " + erasure + ".class)"
+                : "file.getObject(" + path + ", " + erasure + ".class, " + def + ")";
+    }
+
+    @NotNull
+    private static String getter(@NotNull String name, @NotNull String path, @Nullable String def) {
+        return "file." + name + "(" + path + (def == null ? "" : ", " + def) + ")";
+    }
+
+    @NotNull
+    private static String orDefault(@NotNull String expression, @NotNull String path, @Nullable String def) {
+        return def == null ? expression : "file.isSet(" + path + ") ? " + expression + " : " + def;
+    }
+
+    @Nullable
+    private static String arrayGetter(@NotNull TypeMirror type) {
+        switch (((ArrayType) type).getComponentType().getKind()) {
+            case INT:
+                return "getIntArray";
+            case LONG:
+                return "getLongArray";
+            case DOUBLE:
+                return "getDoubleArray";
+            default:
+                return null;
+        }
+    }
+
+    @NotNull
+    private static String literal(@NotNull String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < ' ') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * The simple name of the binding, which includes the names of enclosing classes.
+     */
+    @NotNull
+    private static String bindingName(@NotNull TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append("Binding").toString();
+    }
+
+    private void error(@NotNull String message, @NotNull Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
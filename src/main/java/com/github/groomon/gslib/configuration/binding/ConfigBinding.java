@@ -0,0 +1,41 @@
+package com.github.groomon.gslib.configuration.binding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates an implementation of an interface which holds the values of a
+ * {@link com.github.groomon.gslib.configuration.ConfigurationFile} in final fields, named after the interface with a
+ * {@code Binding} suffix, for example {@code ArenaSettingsBinding} for {@code ArenaSettings}.
+ * <p>
+ * Every abstract method of the interface has to be annotated with {@link ConfigValue} and returns the value at its
+ * path. Default methods annotated with {@link ConfigValue} return the value at their path as well, falling back to
+ * their own result if the path is not set. The generated class has a static {@code bind(ConfigurationFile)} method
+ * creating a {@link com.github.groomon.gslib.configuration.ConfigurationBinding}, which rebuilds the object whenever
+ * the file changes:
+ * <pre>
+ * &#64;ConfigBinding
+ * public interface ArenaSettings {
+ *     &#64;ConfigValue("arena.size")
+ *     default int size() {
+ *         return 5;
+ *     }
+ * }
+ *
+ * ConfigurationBinding&lt;ArenaSettings&gt; settings = ArenaSettingsBinding.bind(file);
+ * int size = settings.get().size();
+ * </pre>
+ * Supported return types are primitives, String, enums, lists, {@code int[]}, {@code long[]}, {@code double[]} and
+ * any other type stored in configurations, such as {@link org.bukkit.util.Vector} or
+ * {@link org.bukkit.inventory.ItemStack}. Lists are unmodifiable, arrays are copied on every call.
+ *
+ * @see BindingProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface ConfigBinding {
+}
@@ -0,0 +1,22 @@
+package com.github.groomon.gslib.configuration.binding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a method of a {@link ConfigBinding} interface to a path.
+ */
+@Documented
+// kept in class files, so interfaces extending compiled interfaces can be bound
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface ConfigValue {
+
+    /**
+     * @return The path of the value, using the path separator of the file.
+     */
+    String value();
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the annotation processor generating typed views of a
+ * {@link com.github.groomon.gslib.configuration.ConfigurationFile} from annotated interfaces.
+ */
+package com.github.groomon.gslib.configuration.binding;
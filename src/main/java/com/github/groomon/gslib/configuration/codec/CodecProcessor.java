@@ -0,0 +1,311 @@
+package com.github.groomon.gslib.configuration.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the codecs of classes annotated with {@link GenerateCodec}. It is registered as annotation processor in
+ * this library, so it runs whenever a plugin depending on it is compiled.
+ */
+@SupportedAnnotationTypes("com.github.groomon.gslib.configuration.codec.GenerateCodec")
+public class CodecProcessor extends AbstractProcessor {
+
+    private static final String SERIALIZABLE = "org.bukkit.configuration.serialization.ConfigurationSerializable";
+    private static final String HELPER = "com.github.groomon.gslib.configuration.json.SerializationHelper";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error("@GenerateCodec can only be used on classes", element);
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<VariableElement> fields = validate(type);
+            if (fields == null) {
+                continue;
+            }
+            try {
+                generate(type, fields);
+            } catch (IOException e) {
+                error("Could not write the codec of " + type + ": " + e.getMessage(), type);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the class and collects the fields to store, reporting errors to the compiler.
+     *
+     * @return The fields, or null if the class cannot have a codec.
+     */
+    @Nullable
+    private List<VariableElement> validate(@NotNull TypeElement type) {
+        boolean valid = true;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            error("A class with a codec cannot be abstract or private", type);
+            valid = false;
+        }
+        if (type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC)) {
+            error("A nested class with a codec has to be static", type);
+            valid = false;
+        }
+        TypeElement serializable = processingEnv.getElementUtils().getTypeElement(SERIALIZABLE);
+        if (serializable != null && !processingEnv.getTypeUtils().isAssignable(type.asType(), serializable.asType())) {
+            error("A class with a codec has to implement ConfigurationSerializable", type);
+            valid = false;
+        }
+        boolean constructor = false;
+        for (ExecutableElement candidate : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (candidate.getParameters().isEmpty() && !candidate.getModifiers().contains(Modifier.PRIVATE)) {
+                constructor = true;
+            }
+        }
+        if (!constructor) {
+            error("A class with a codec needs a constructor without parameters which is not private", type);
+            valid = false;
+        }
+
+        // the fields of superclasses come first, in the order they are initialized
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            hierarchy.add(0, current);
+        }
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement declaring : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                Set<Modifier> fieldModifiers = field.getModifiers();
+                if (fieldModifiers.contains(Modifier.STATIC) || fieldModifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                TypeMirror fieldType = fieldType(type, field);
+                if (fieldModifiers.contains(Modifier.PRIVATE) || fieldModifiers.contains(Modifier.FINAL)) {
+                    error("A field stored by a codec cannot be private or final, make it transient to leave it out", type, field);
+                    valid = false;
+                } else if (declaring != type && !fieldModifiers.contains(Modifier.PUBLIC)
+                        && !processingEnv.getElementUtils().getPackageOf(declaring).equals(pkg)) {
+                    error("An inherited field stored by a codec has to be public if it is declared in another package", type, field);
+                    valid = false;
+                } else if (fieldType.getKind() == TypeKind.CHAR || fieldType.getKind() == TypeKind.ARRAY) {
+                    error("Fields of type " + fieldType + " are not supported by codecs", type, field);
+                    valid = false;
+                } else if (!names.add(field.getSimpleName().toString())) {
+                    error("A field stored by a codec cannot hide a field of a superclass", type, field);
+                    valid = false;
+                }
+                fields.add(field);
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    /**
+     * The superclass whose fields are stored as well, or null if there is none. Classes of the Java platform, such as
+     * {@link Object}, are left out.
+     */
+    @Nullable
+    private TypeElement superclass(@NotNull TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(superclass);
+        return element.getQualifiedName().toString().startsWith("java.") ? null : element;
+    }
+
+    /**
+     * The type of the field as seen from the class, with the type arguments of generic superclasses applied.
+     */
+    @NotNull
+    private TypeMirror fieldType(@NotNull TypeElement type, @NotNull VariableElement field) {
+        return processingEnv.getTypeUtils().asMemberOf((DeclaredType) type.asType(), field);
+    }
+
+    private void generate(@NotNull TypeElement type, @NotNull List<VariableElement> fields) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String name = codecName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n * Generated from {@link ").append(typeName).append("} by ")
+                .append(CodecProcessor.class.getSimpleName()).append(", do not edit.\n */\n");
+        if (type.getModifiers().contains(Modifier.PUBLIC)) {
+            out.append("public ");
+        }
+        out.append("final class ").append(name)
+                .append(" implements com.github.groomon.gslib.configuration.json.SerializationCodec<").append(typeName).append("> {\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public Class<").append(typeName).append("> getType() {\n");
+        out.append("        return ").append(typeName).append(".class;\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public void write(").append(typeName).append(" value, com.github.groomon.gslib.configuration.json.SerializationSink sink)")
+                .append(" throws java.io.IOException {\n");
+        for (VariableElement field : fields) {
+            writeField(out, fieldType(type, field), field);
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    @SuppressWarnings(\"unchecked\")\n");
+        out.append("    public ").append(typeName).append(" read(com.github.groomon.gslib.configuration.json.SerializationSource source)")
+                .append(" throws java.io.IOException, org.bukkit.configuration.InvalidConfigurationException {\n");
+        out.append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+        out.append("        for (String key = source.nextKey(); key != null; key = source.nextKey()) {\n");
+        out.append("            switch (key) {\n");
+        for (VariableElement field : fields) {
+            out.append("                case \"").append(field.getSimpleName()).append("\":\n");
+            out.append("                    value.").append(field.getSimpleName()).append(" = ").append(readExpression(fieldType(type, field))).append(";\n");
+            out.append("                    break;\n");
+        }
+        out.append("                default:\n");
+        if (type.getAnnotation(GenerateCodec.class).ignoreUnknownKeys()) {
+            out.append("                    source.skipValue();\n");
+        } else {
+            // the value would get lost on the next save otherwise
+            out.append("                    throw new org.bukkit.configuration.InvalidConfigurationException(\"Unknown key '\" + key + \"' in serialized ")
+                    .append(type.getSimpleName()).append(".\");\n");
+        }
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        return value;\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void writeField(@NotNull StringBuilder out, @NotNull TypeMirror type, @NotNull VariableElement field) {
+        String access = "value." + field.getSimpleName();
+        out.append("        sink.key(\"").append(field.getSimpleName()).append("\");\n");
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case DOUBLE:
+                out.append("        sink.value(").append(access).append(");\n");
+                return;
+            case BYTE:
+            case SHORT:
+                out.append("        sink.value((int) ").append(access).append(");\n");
+                return;
+            case FLOAT:
+                out.append("        sink.value((double) ").append(access).append(");\n");
+                return;
+            default:
+        }
+        if (isString(type)) {
+            out.append("        if (").append(access).append(" == null) sink.nullValue(); else sink.value(").append(access).append(");\n");
+        } else if (isEnum(type)) {
+            out.append("        if (").append(access).append(" == null) sink.nullValue(); else sink.value(").append(access).append(".name());\n");
+        } else {
+            out.append("        ").append(HELPER).append(".serialize(").append(access).append(", sink);\n");
+        }
+    }
+
+    @NotNull
+    private String readExpression(@NotNull TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "source.readBoolean()";
+            case INT:
+                return "source.readInt()";
+            case LONG:
+                return "source.readLong()";
+            case DOUBLE:
+                return "source.readDouble()";
+            case BYTE:
+                return "(byte) source.readInt()";
+            case SHORT:
+                return "(short) source.readInt()";
+            case FLOAT:
+                return "(float) source.readDouble()";
+            default:
+        }
+        String erasure = processingEnv.getTypeUtils().erasure(type).toString();
+        if (isString(type)) {
+            return "source.readString()";
+        } else if (isEnum(type)) {
+            return "source.readEnum(" + erasure + ".class)";
+        }
+        return "source.readValue(" + erasure + ".class)";
+    }
+
+    private boolean isString(@NotNull TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().asElement(type).toString().equals("java.lang.String");
+    }
+
+    private boolean isEnum(@NotNull TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().asElement(type).getKind() == ElementKind.ENUM;
+    }
+
+    /**
+     * The simple name of the codec, which includes the names of enclosing classes.
+     */
+    @NotNull
+    private static String codecName(@NotNull TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append("Codec").toString();
+    }
+
+    private void error(@NotNull String message, @NotNull Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Reports an error of a field, at the class if the field is inherited, as it may not be part of the sources.
+     */
+    private void error(@NotNull String message, @NotNull TypeElement type, @NotNull VariableElement field) {
+        if (field.getEnclosingElement().equals(type)) {
+            error(message, field);
+        } else {
+            error(message + ": " + field.getEnclosingElement().getSimpleName() + "." + field.getSimpleName(), type);
+        }
+    }
+}
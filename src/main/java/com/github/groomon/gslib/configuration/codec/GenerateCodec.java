@@ -0,0 +1,44 @@
+package com.github.groomon.gslib.configuration.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@link com.github.groomon.gslib.configuration.json.SerializationCodec} for a serializable class at
+ * compile time, named after the class with a {@code Codec} suffix, for example {@code ArenaCodec} for {@code Arena}.
+ * Nested classes are named after their enclosing classes as well, as in {@code Outer_InnerCodec}.
+ * <p>
+ * The codec stores every field declared in the class or its superclasses which is neither static nor transient, using
+ * the name of the field as key. The fields must not be private or final, inherited fields declared in another package
+ * have to be public, and the class needs a constructor without parameters which is not private. Fields missing from a
+ * file keep the value assigned by that constructor, while keys which do not belong to a field fail to load, unless
+ * {@link #ignoreUnknownKeys()} is set. Primitive, String and enum fields are written and read directly, other fields
+ * go through {@link com.github.groomon.gslib.configuration.json.SerializationHelper} like map values do.
+ * <p>
+ * The generated codec has to be registered with
+ * {@link com.github.groomon.gslib.configuration.json.SerializationHelper#registerCodec(
+ * com.github.groomon.gslib.configuration.json.SerializationCodec)}.
+ * <p>
+ * <b>The codec replaces {@code serialize()} of the class while it is registered.</b> Files it writes are read with
+ * {@code deserialize(Map)} of the class wherever it is not registered, such as by the
+ * {@link com.github.groomon.gslib.configuration.binary.BinaryConverter}, other plugins or an older build of the
+ * plugin. So {@code serialize()} has to use the names of the fields as keys, and the class has to be able to read all
+ * of them. Otherwise such files lose their values. Registering a codec fails if {@code serialize()} returns a key the
+ * codec does not write, which is checked on an object created without any entries.
+ *
+ * @see CodecProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {
+
+    /**
+     * @return Whether keys which do not belong to a field, for example of a removed field, are skipped when reading.
+     *         They are dropped the next time the object is saved.
+     */
+    boolean ignoreUnknownKeys() default false;
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the annotation processor generating {@link com.github.groomon.gslib.configuration.json.SerializationCodec}s
+ * for serializable classes.
+ */
+package com.github.groomon.gslib.configuration.codec;
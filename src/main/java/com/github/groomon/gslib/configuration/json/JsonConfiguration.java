@@ -3,19 +3,30 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package com.github.groomon.gslib.configuration.json;
 
-import net.minidev.json.JSONValue;
-import net.minidev.json.parser.JSONParser;
-import net.minidev.json.parser.ParseException;
-import org.bukkit.configuration.ConfigurationSection;
+import com.github.groomon.gslib.configuration.StreamingConfiguration;
+import org.apache.commons.lang.Validate;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,16 +35,26 @@ import java.util.logging.Logger;
  *
  * Able to store all the things you'd expect from a Bukkit configuration.
  */
-public class JsonConfiguration extends FileConfiguration {
+public class JsonConfiguration extends FileConfiguration implements StreamingConfiguration {
 
     protected static final String BLANK_CONFIG = "{}\n";
 
     private static final Logger LOG = Logger.getLogger(JsonConfiguration.class.getName());
 
+    // whether sections have been loaded lazily, in which case the map might contain RawSections
+    private boolean lazy;
+
     @NotNull
     @Override
     public String saveToString() {
-        String dump = JSONValue.toJSONString(SerializationHelper.serialize(getValues(false)));
+        StringWriter writer = new StringWriter();
+        try {
+            save(writer);
+        } catch (IOException e) {
+            // a StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        String dump = writer.toString();
 
         if (dump.equals(BLANK_CONFIG)) {
             dump = "";
@@ -42,45 +63,150 @@ public class JsonConfiguration extends FileConfiguration {
         return dump;
     }
 
+    /**
+     * Writes this configuration as JSON to the given writer. Values are serialized while they are written, without
+     * building a copy of the configuration or its string representation first.
+     *
+     * @param writer The writer to write to. It is flushed, but not closed.
+     * @throws IOException If the writer throws an IOException.
+     */
+    public void save(@NotNull Writer writer) throws IOException {
+        Validate.notNull(writer, "Writer cannot be null");
+        JsonWriter json = new JsonWriter(writer);
+        if (lazy && (!options().copyDefaults() || getDefaults() == null)) {
+            // the defaults would be written as well, which requires all sections to be parsed
+            LazySection.write(map, json);
+        } else if (options().parallelThreshold() > 0 && !lazy) {
+            // sections which have not been parsed yet would be parsed by several threads at once otherwise
+            SerializationHelper.serializeParallel(this, json, options().parallelThreshold());
+        } else {
+            SerializationHelper.serialize(this, json);
+        }
+        json.flush();
+    }
+
+    @Override
+    public void save(@NotNull OutputStream out) throws IOException {
+        Validate.notNull(out, "Stream cannot be null");
+        save(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void save(@NotNull File file) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            save(out);
+        }
+    }
+
     @Override
     public void loadFromString(@NotNull final String contents) throws InvalidConfigurationException {
-        if (contents.isEmpty()) {
+        if (options().lazyDepth() > 0) {
+            loadLazily(contents);
             return;
         }
+        try {
+            load(new StringReader(contents));
+        } catch (IOException e) {
+            // a StringReader does not throw
+            throw new InvalidConfigurationException(e);
+        }
+    }
 
-        Map<?, ?> input;
+    /**
+     * Loads this configuration from the given reader. The JSON is parsed while it is read, straight into
+     * configuration sections, without holding the whole input as a string.
+     *
+     * @param reader The reader to load from. It is closed afterwards.
+     * @throws IOException If the reader throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid JSON or its top level is not an object.
+     */
+    @Override
+    public void load(@NotNull Reader reader) throws IOException, InvalidConfigurationException {
+        Validate.notNull(reader, "Reader cannot be null");
         try {
-            input = (Map<?, ?>) new JSONParser(JSONParser.USE_INTEGER_STORAGE).parse(contents);
-        } catch (ParseException e) {
-            throw new InvalidConfigurationException("Invalid JSON detected.", e);
-        } catch (ClassCastException e) {
-            throw new InvalidConfigurationException("Top level is not a Map.", e);
+            if (options().lazyDepth() > 0) {
+                loadLazily(readFully(reader));
+            } else {
+                new JsonReader(reader).readSection(this);
+            }
+        } finally {
+            reader.close();
         }
+    }
 
-        if (input != null) {
-            convertMapsToSections(input, this);
+    @Override
+    public void load(@NotNull InputStream in) throws IOException, InvalidConfigurationException {
+        Validate.notNull(in, "Stream cannot be null");
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (options().lazyDepth() > 0) {
+            loadLazily(readFully(reader));
         } else {
-            throw new InvalidConfigurationException("An unknown error occurred while attempting to parse the json.");
+            new JsonReader(reader).readSection(this);
+        }
+    }
+
+    /**
+     * Loads the given text, keeping the sections up to the lazy depth unparsed.
+     */
+    private void loadLazily(@NotNull String contents) throws InvalidConfigurationException {
+        try {
+            Map<String, Object> entries = new JsonReader(new StringReader(contents)).readLazyDocument(contents, options().lazyDepth());
+            if (entries == null) {
+                // a serialized object at the top level, which is not split into sections
+                new JsonReader(new StringReader(contents)).readSection(this);
+                return;
+            }
+            lazy = true;
+            LazySection.putAll(this, map, entries);
+        } catch (IOException e) {
+            // a StringReader does not throw
+            throw new InvalidConfigurationException(e);
+        }
+    }
+
+    @NotNull
+    private static String readFully(@NotNull Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
         }
+        return builder.toString();
+    }
+
+    @Nullable
+    @Override
+    public Object get(@NotNull String path, @Nullable Object def) {
+        Object value = super.get(path, def);
+        return value instanceof RawSection ? LazySection.materialize(this, map, path) : value;
     }
 
-    private void convertMapsToSections(@NotNull Map<?, ?> input, @NotNull final ConfigurationSection section) {
-        final Object result = SerializationHelper.deserialize(input);
-        if (result instanceof Map) {
-            input = (Map<?, ?>) result;
-            for (Map.Entry<?, ?> entry : input.entrySet()) {
-                String key = entry.getKey().toString();
-                Object value = entry.getValue();
+    @NotNull
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        if (lazy && deep) {
+            LazySection.materializeAll(this, map);
+        }
+        return super.getKeys(deep);
+    }
 
-                if (value instanceof Map) {
-                    convertMapsToSections((Map<?, ?>) value, section.createSection(key));
-                } else {
-                    section.set(key, value);
-                }
+    @NotNull
+    @Override
+    public Map<String, Object> getValues(boolean deep) {
+        if (lazy) {
+            if (deep) {
+                LazySection.materializeAll(this, map);
+            } else {
+                LazySection.materializeChildren(this, map);
             }
-        } else {
-            section.set("", result);
         }
+        return super.getValues(deep);
     }
 
     @Override
@@ -126,5 +252,8 @@ public class JsonConfiguration extends FileConfiguration {
 
     public JsonConfiguration() {
         ConfigurationSerialization.registerClass(SerializableSet.class);
+        ConfigurationSerialization.registerClass(SerializableIntSet.class);
+        ConfigurationSerialization.registerClass(SerializableLongSet.class);
+        ConfigurationSerialization.registerClass(SerializableUuidSet.class);
     }
 }
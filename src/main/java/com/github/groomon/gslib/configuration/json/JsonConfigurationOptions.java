@@ -3,6 +3,7 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package com.github.groomon.gslib.configuration.json;
 
+import org.apache.commons.lang.Validate;
 import org.bukkit.configuration.file.FileConfigurationOptions;
 import org.jetbrains.annotations.NotNull;
 
@@ -11,6 +12,9 @@ import org.jetbrains.annotations.NotNull;
  */
 public class JsonConfigurationOptions extends FileConfigurationOptions {
 
+    private int lazyDepth;
+    private int parallelThreshold;
+
     protected JsonConfigurationOptions(@NotNull final JsonConfiguration configuration) {
         super(configuration);
     }
@@ -43,4 +47,60 @@ public class JsonConfigurationOptions extends FileConfigurationOptions {
         super.copyHeader(value);
         return this;
     }
+
+    /**
+     * Gets how many levels of sections are parsed lazily.
+     *
+     * @return The number of levels, 0 if everything is parsed while loading.
+     * @see #lazyDepth(int)
+     */
+    public int lazyDepth() {
+        return lazyDepth;
+    }
+
+    /**
+     * Sets how many levels of sections are parsed lazily, for large files of which only a few sections are used.
+     * <p>
+     * With a depth of 1, the sections at the top level are only checked for syntax errors while loading and parsed
+     * the first time they are accessed. With a depth of 2, the same applies to the sections within them, and so on.
+     * Sections which have not been accessed are saved exactly as they have been loaded, and the loaded text is kept
+     * in memory as long as such sections remain.
+     *
+     * @param value The number of levels, 0 to parse everything while loading.
+     * @return This object, for chaining.
+     */
+    public JsonConfigurationOptions lazyDepth(final int value) {
+        Validate.isTrue(value >= 0, "Depth cannot be negative");
+        lazyDepth = value;
+        return this;
+    }
+
+    /**
+     * Gets how many values a chunk serialized in parallel holds at least.
+     *
+     * @return The number of values, 0 if the configuration is serialized sequentially.
+     * @see #parallelThreshold(int)
+     */
+    public int parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets how many values a chunk serialized in parallel holds at least, for large configurations with many
+     * independent sections, such as one per player.
+     * <p>
+     * Sections holding more values than this, counting nested values, are split into chunks of consecutive entries
+     * which are serialized on multiple threads, see
+     * {@link SerializationHelper#serializeParallel(Object, JsonWriter, int)}. Smaller configurations are serialized
+     * sequentially. A few thousand values per chunk keep the overhead of the threads low. Configurations with sections
+     * which are not parsed yet, see {@link #lazyDepth(int)}, are always saved sequentially.
+     *
+     * @param value The number of values, 0 to serialize sequentially.
+     * @return This object, for chaining.
+     */
+    public JsonConfigurationOptions parallelThreshold(final int value) {
+        Validate.isTrue(value >= 0, "Threshold cannot be negative");
+        parallelThreshold = value;
+        return this;
+    }
 }
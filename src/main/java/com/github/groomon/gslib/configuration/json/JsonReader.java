@@ -0,0 +1,905 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JSON parser reading tokens straight from a {@link Reader}.
+ * <p>
+ * Objects are built into {@link ConfigurationSection}s as they are read, and objects carrying the
+ * {@link ConfigurationSerialization#SERIALIZED_TYPE_KEY} are deserialized as soon as they are complete, so the whole
+ * tree is built in a single pass without holding the input as a string. Numbers are stored like json-smart does with
+ * {@code USE_INTEGER_STORAGE}: integers as {@link Integer} if they fit, otherwise as {@link Long} or
+ * {@link BigInteger}, and decimals as {@link Double}. Lists of numbers are read into an {@link IntArrayList},
+ * {@link LongArrayList} or {@link DoubleArrayList} without boxing the elements, unless they mix integers and decimals.
+ * These lists still accept any element, like the lists holding other values.
+ */
+public class JsonReader {
+
+    private static final int EOF = -1;
+
+    // kinds of numbers returned by readNumberToken
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int BIG = 3;
+
+    @NotNull
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    // number of characters consumed before the current buffer
+    private long consumed;
+    private final StringBuilder scratch = new StringBuilder();
+    // the last number read by readNumberToken
+    private long longValue;
+    private double doubleValue;
+    private BigInteger bigValue;
+
+    public JsonReader(@NotNull Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Creates a reader whose input starts at the given position of a larger text, so the positions it reports refer
+     * to that text.
+     */
+    JsonReader(@NotNull Reader in, long offset) {
+        this.in = in;
+        this.consumed = offset;
+    }
+
+    /**
+     * Reads a JSON document whose top level is an object into the given section.
+     *
+     * @param section The section to fill.
+     * @return False if the input was empty, true otherwise.
+     * @throws IOException If the underlying reader throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid JSON or its top level is not an object.
+     */
+    public boolean readSection(@NotNull ConfigurationSection section) throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == EOF) {
+            return false;
+        }
+        if (c != '{') {
+            throw new InvalidConfigurationException("Top level is not a Map.");
+        }
+        pos++;
+        readEntries(section, null, null);
+        if (peek() != EOF) {
+            throw error("Unexpected data after the top level object");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next value. Objects are read as maps, which are deserialized if they carry a type key.
+     *
+     * @return The value, which is null for a JSON {@code null}.
+     * @throws IOException If the underlying reader throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid JSON.
+     */
+    @Nullable
+    public Object readValue() throws IOException, InvalidConfigurationException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                pos++;
+                return readMap(null);
+            case '[':
+                pos++;
+                return readList();
+            case '"':
+                pos++;
+                return readString();
+            case 't':
+                expectLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectLiteral("null");
+                return null;
+            case 'N':
+                expectLiteral("NaN");
+                return Double.NaN;
+            case 'I':
+                expectLiteral("Infinity");
+                return Double.POSITIVE_INFINITY;
+            case EOF:
+                throw error("Unexpected end of input");
+            default:
+                if (isNumberStart(c)) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Passes a JSON document whose top level is an object on to the given sink, see
+     * {@link #transfer(SerializationSink)}.
+     *
+     * @param sink The sink receiving the document.
+     * @return False if the input was empty, true otherwise.
+     * @throws IOException If the underlying reader or the sink throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid JSON or its top level is not an object.
+     */
+    public boolean transferDocument(@NotNull SerializationSink sink) throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == EOF) {
+            return false;
+        }
+        if (c != '{') {
+            throw new InvalidConfigurationException("Top level is not a Map.");
+        }
+        transfer(sink);
+        if (peek() != EOF) {
+            throw error("Unexpected data after the top level object");
+        }
+        return true;
+    }
+
+    /**
+     * Passes the next value on to the given sink as it is read. Objects are not deserialized, so serialized objects
+     * are passed on as maps with their type key, even if their class is not registered.
+     *
+     * @param sink The sink receiving the value.
+     * @throws IOException If the underlying reader or the sink throws an IOException.
+     * @throws InvalidConfigurationException If the input is not valid JSON.
+     */
+    public void transfer(@NotNull SerializationSink sink) throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == '{') {
+            pos++;
+            sink.beginMap(-1);
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    sink.key(readKey());
+                    transfer(sink);
+                } while (nextInObject());
+            }
+            sink.endMap();
+        } else if (c == '[') {
+            pos++;
+            c = peek();
+            if (isNumberStart(c)) {
+                readNumericList(sink);
+                return;
+            }
+            sink.beginList(-1);
+            if (c == ']') {
+                pos++;
+            } else {
+                do {
+                    transfer(sink);
+                } while (nextInList());
+            }
+            sink.endList();
+        } else {
+            SerializationHelper.serialize(readValue(), sink);
+        }
+    }
+
+    /**
+     * Reads the top level object of a document like {@link #readSection(ConfigurationSection)}, but keeps nested
+     * objects unparsed, see {@link #readLazyEntries(String, int)}. An empty input is read as an empty object.
+     *
+     * @return The entries, or null if the top level object is a serialized object.
+     */
+    @Nullable
+    Map<String, Object> readLazyDocument(@NotNull String source, int depth) throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == EOF) {
+            return new LinkedHashMap<>();
+        }
+        if (c != '{') {
+            throw new InvalidConfigurationException("Top level is not a Map.");
+        }
+        Map<String, Object> entries = readLazyEntries(source, depth);
+        if (entries != null && peek() != EOF) {
+            throw error("Unexpected data after the top level object");
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the entries of the next object. Objects nested in it are only checked for syntax errors and stored as
+     * {@link RawSection}s referring to their range of the source, which allow them to be parsed later.
+     *
+     * @param source The complete input of this reader.
+     * @param depth The number of levels of sections to keep unparsed, including the nested objects.
+     * @return The entries, or null if the object is a serialized object.
+     */
+    @Nullable
+    Map<String, Object> readLazyEntries(@NotNull String source, int depth) throws IOException, InvalidConfigurationException {
+        if (peek() != '{') {
+            throw error("Expected '{'");
+        }
+        pos++;
+        Map<String, Object> entries = new LinkedHashMap<>();
+        if (peek() == '}') {
+            pos++;
+            return entries;
+        }
+        do {
+            String key = readKey();
+            if (key.equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                return null;
+            }
+            if (peek() == '{') {
+                int start = (int) (consumed + pos);
+                skipValue();
+                entries.put(key, new RawSection(source, start, (int) (consumed + pos), depth - 1));
+            } else {
+                entries.put(key, readValue());
+            }
+        } while (nextInObject());
+        return entries;
+    }
+
+    /**
+     * Reads the next object as the value of the given key, like it would have been read as part of its parent.
+     */
+    void readEntry(@NotNull ConfigurationSection parent, @NotNull String key) throws IOException, InvalidConfigurationException {
+        if (peek() != '{') {
+            throw error("Expected '{'");
+        }
+        pos++;
+        readEntries(null, parent, key);
+    }
+
+    /**
+     * Reads the entries of an object, whose opening brace has been consumed, into a section. The section is only
+     * created when the object turns out not to be a serialized object.
+     *
+     * @param section The section to read into, or null to create it as {@code key} in {@code parent}.
+     */
+    private void readEntries(@Nullable ConfigurationSection section, @Nullable ConfigurationSection parent,
+                             @Nullable String key) throws IOException, InvalidConfigurationException {
+        if (peek() == '}') {
+            pos++;
+            if (section == null) {
+                parent.createSection(key);
+            }
+            return;
+        }
+        do {
+            String entryKey = readKey();
+            if (entryKey.equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                // a serialized object, read the rest of it as a map
+                Map<String, Object> map = section == null ? new LinkedHashMap<>() : toMap(section);
+                Object result = readSerialized(map);
+                if (section == null) {
+                    parent.set(key, result);
+                } else if (section.getParent() == null) {
+                    // a serialized object at the top level, stored the same way as before
+                    for (String existing : section.getKeys(false)) {
+                        section.set(existing, null);
+                    }
+                    section.set("", result);
+                } else {
+                    section.getParent().set(section.getName(), result);
+                }
+                return;
+            }
+            if (section == null) {
+                section = parent.createSection(key);
+            }
+            if (peek() == '{') {
+                pos++;
+                readEntries(null, section, entryKey);
+            } else {
+                section.set(entryKey, readValue());
+            }
+        } while (nextInObject());
+    }
+
+    /**
+     * Reads the remaining entries of an object, whose opening brace has been consumed, into a map and deserializes it
+     * if it carries a type key.
+     *
+     * @param map The entries read so far, or null if no entries have been read yet.
+     */
+    @Nullable
+    private Object readMap(@Nullable Map<String, Object> map) throws IOException, InvalidConfigurationException {
+        if (map == null) {
+            map = new LinkedHashMap<>();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+        } else if (!nextInObject()) {
+            return SerializationHelper.deserializeObject(map);
+        }
+        do {
+            String key = readKey();
+            if (map.isEmpty() && key.equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                return readSerialized(map);
+            }
+            map.put(key, readValue());
+        } while (nextInObject());
+        return SerializationHelper.deserializeObject(map);
+    }
+
+    /**
+     * Reads the rest of a serialized object whose type key has been consumed. If it is the first key and the class
+     * has a {@link SerializationCodec}, the codec reads the entries directly, otherwise they are read into a map.
+     *
+     * @param map The entries read before the type key.
+     */
+    @Nullable
+    private Object readSerialized(@NotNull Map<String, Object> map) throws IOException, InvalidConfigurationException {
+        Object alias = readValue();
+        if (map.isEmpty() && alias instanceof String) {
+            SerializationCodec<?> codec = SerializationHelper.getCodec((String) alias);
+            if (codec != null) {
+                return SerializationHelper.read(codec, new EntrySource());
+            }
+        }
+        map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+        return readMap(map);
+    }
+
+    @NotNull
+    private List<?> readList() throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == ']') {
+            pos++;
+            return new ArrayList<>();
+        }
+        if (isNumberStart(c)) {
+            return readNumericList(null);
+        }
+        return readElements(new ArrayList<>());
+    }
+
+    /**
+     * Reads the remaining elements of a list into the given list. The next element has not been consumed yet.
+     */
+    @NotNull
+    private List<Object> readElements(@NotNull List<Object> list) throws IOException, InvalidConfigurationException {
+        do {
+            list.add(readValue());
+        } while (nextInList());
+        return list;
+    }
+
+    /**
+     * Reads a list starting with a number. As long as the elements are numbers of the same kind they are collected
+     * into a primitive array, integers of which some only fit into a long into a long array. Once an element does not
+     * fit, the elements read so far are boxed and the rest is read as a regular list.
+     *
+     * @param sink The sink to pass the list on to instead, in which case elements after the boxed ones are passed on
+     *             one by one without deserializing them.
+     * @return The list, or null if it has been passed on to the sink.
+     */
+    @Nullable
+    private List<?> readNumericList(@Nullable SerializationSink sink) throws IOException, InvalidConfigurationException {
+        int kind = readNumberToken();
+        int size = 0;
+        int[] ints = null;
+        long[] longs = null;
+        double[] doubles = null;
+        switch (kind) {
+            case INT:
+                ints = new int[16];
+                ints[size++] = (int) longValue;
+                break;
+            case LONG:
+                longs = new long[16];
+                longs[size++] = longValue;
+                break;
+            case DOUBLE:
+                doubles = new double[16];
+                doubles[size++] = doubleValue;
+                break;
+            default:
+                List<Object> list = new ArrayList<>();
+                list.add(boxNumber(kind));
+                return continueList(list, nextInList(), sink);
+        }
+        while (nextInList()) {
+            int c = peek();
+            int next;
+            if (isNumberStart(c)) {
+                next = readNumberToken();
+            } else if (kind == DOUBLE && (c == 'N' || c == 'I')) {
+                doubleValue = (Double) readValue();
+                next = DOUBLE;
+            } else {
+                return continueList(box(ints, longs, doubles, size), true, sink);
+            }
+
+            if (kind == INT && next == INT) {
+                if (size == ints.length) ints = Arrays.copyOf(ints, size + (size >> 1));
+                ints[size++] = (int) longValue;
+            } else if ((kind == INT || kind == LONG) && (next == INT || next == LONG)) {
+                if (kind == INT) {
+                    longs = new long[ints.length];
+                    for (int i = 0; i < size; i++) {
+                        longs[i] = ints[i];
+                    }
+                    ints = null;
+                    kind = LONG;
+                }
+                if (size == longs.length) longs = Arrays.copyOf(longs, size + (size >> 1));
+                longs[size++] = longValue;
+            } else if (kind == DOUBLE && next == DOUBLE) {
+                if (size == doubles.length) doubles = Arrays.copyOf(doubles, size + (size >> 1));
+                doubles[size++] = doubleValue;
+            } else {
+                List<Object> list = box(ints, longs, doubles, size);
+                list.add(boxNumber(next));
+                return continueList(list, nextInList(), sink);
+            }
+        }
+        List<?> list;
+        if (kind == INT) {
+            list = IntArrayList.wrap(ints, size);
+        } else if (kind == LONG) {
+            list = LongArrayList.wrap(longs, size);
+        } else {
+            list = DoubleArrayList.wrap(doubles, size);
+        }
+        if (sink != null) {
+            SerializationHelper.serialize(list, sink);
+            return null;
+        }
+        return list;
+    }
+
+    /**
+     * Continues a list read by {@link #readNumericList(SerializationSink)} which had to be boxed.
+     *
+     * @param list The elements read so far.
+     * @param more Whether more elements follow, the next one has not been consumed yet.
+     * @param sink The sink to pass the list on to, or null to read the remaining elements into the list.
+     * @return The list, or null if it has been passed on to the sink.
+     */
+    @Nullable
+    private List<Object> continueList(@NotNull List<Object> list, boolean more, @Nullable SerializationSink sink)
+            throws IOException, InvalidConfigurationException {
+        if (sink == null) {
+            return more ? readElements(list) : list;
+        }
+        sink.beginList(-1);
+        for (Object element : list) {
+            SerializationHelper.serialize(element, sink);
+        }
+        if (more) {
+            do {
+                transfer(sink);
+            } while (nextInList());
+        }
+        sink.endList();
+        return null;
+    }
+
+    /**
+     * Boxes the elements of whichever of the arrays is used into a regular list, keeping the types they would have
+     * been read as.
+     */
+    @NotNull
+    private static List<Object> box(@Nullable int[] ints, @Nullable long[] longs, @Nullable double[] doubles, int size) {
+        List<Object> list = new ArrayList<>(size + 8);
+        for (int i = 0; i < size; i++) {
+            if (ints != null) {
+                list.add(ints[i]);
+            } else if (longs != null) {
+                list.add(narrow(longs[i]));
+            } else {
+                list.add(doubles[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Consumes the next value, checking its syntax without building it.
+     */
+    private void skipValue() throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == '{') {
+            pos++;
+            if (peek() == '}') {
+                pos++;
+                return;
+            }
+            do {
+                if (peek() != '"') {
+                    throw error("Expected a key");
+                }
+                pos++;
+                skipString();
+                if (peek() != ':') {
+                    throw error("Expected ':'");
+                }
+                pos++;
+                skipValue();
+            } while (nextInObject());
+        } else if (c == '[') {
+            pos++;
+            if (peek() == ']') {
+                pos++;
+                return;
+            }
+            do {
+                skipValue();
+            } while (nextInList());
+        } else if (c == '"') {
+            pos++;
+            skipString();
+        } else if (isNumberStart(c)) {
+            readNumberToken();
+        } else {
+            readValue();
+        }
+    }
+
+    /**
+     * Consumes a string whose opening quote has been consumed.
+     */
+    private void skipString() throws IOException, InvalidConfigurationException {
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            } else if (c == EOF) {
+                throw error("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Consumes the separator after a list element.
+     *
+     * @return True if another element follows, false if the list has been closed.
+     */
+    private boolean nextInList() throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == ',') {
+            pos++;
+            return true;
+        }
+        if (c == ']') {
+            pos++;
+            return false;
+        }
+        throw error("Expected ',' or ']'");
+    }
+
+    @NotNull
+    private static Map<String, Object> toMap(@NotNull ConfigurationSection section) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+            Object value = entry.getValue();
+            map.put(entry.getKey(), value instanceof ConfigurationSection ? toMap((ConfigurationSection) value) : value);
+        }
+        return map;
+    }
+
+    /**
+     * Reads a key and the following colon.
+     */
+    @NotNull
+    private String readKey() throws IOException, InvalidConfigurationException {
+        if (peek() != '"') {
+            throw error("Expected a key");
+        }
+        pos++;
+        String key = readString();
+        if (peek() != ':') {
+            throw error("Expected ':'");
+        }
+        pos++;
+        return key;
+    }
+
+    /**
+     * Consumes the separator after an object entry.
+     *
+     * @return True if another entry follows, false if the object has been closed.
+     */
+    private boolean nextInObject() throws IOException, InvalidConfigurationException {
+        int c = peek();
+        if (c == ',') {
+            pos++;
+            return true;
+        }
+        if (c == '}') {
+            pos++;
+            return false;
+        }
+        throw error("Expected ',' or '}'");
+    }
+
+    /**
+     * Reads a string whose opening quote has been consumed.
+     */
+    @NotNull
+    private String readString() throws IOException, InvalidConfigurationException {
+        StringBuilder builder = scratch;
+        builder.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    builder.append(buffer, start, pos - start);
+                    pos++;
+                    return builder.toString();
+                }
+                if (c == '\\') {
+                    builder.append(buffer, start, pos - start);
+                    pos++;
+                    builder.append(readEscape());
+                    start = pos;
+                    continue;
+                }
+                pos++;
+            }
+            builder.append(buffer, start, pos - start);
+        }
+    }
+
+    private char readEscape() throws IOException, InvalidConfigurationException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw error("Invalid escape sequence");
+        }
+    }
+
+    @NotNull
+    private Object readNumber() throws IOException, InvalidConfigurationException {
+        return boxNumber(readNumberToken());
+    }
+
+    @NotNull
+    private Number boxNumber(int kind) {
+        switch (kind) {
+            case INT:
+                return (int) longValue;
+            case LONG:
+                return longValue;
+            case DOUBLE:
+                return doubleValue;
+            default:
+                return bigValue;
+        }
+    }
+
+    /**
+     * Reads a number without boxing it. The value is left in {@link #longValue} for {@link #INT} and {@link #LONG},
+     * in {@link #doubleValue} for {@link #DOUBLE} and in {@link #bigValue} for {@link #BIG}.
+     *
+     * @return The kind of the number.
+     */
+    private int readNumberToken() throws IOException, InvalidConfigurationException {
+        StringBuilder builder = scratch;
+        builder.setLength(0);
+        boolean decimal = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                builder.append(c);
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                builder.append(c);
+                decimal = true;
+            } else if (c == 'I' && builder.length() == 1 && builder.charAt(0) == '-') {
+                expectLiteral("Infinity");
+                doubleValue = Double.NEGATIVE_INFINITY;
+                return DOUBLE;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        int length = builder.length();
+        int start = length > 0 && builder.charAt(0) == '-' ? 1 : 0;
+        if (!decimal && length > start && length - start < 19) {
+            // common case, parsed without creating a string
+            long value = 0;
+            for (int i = start; i < length; i++) {
+                char c = builder.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw error("Invalid number '" + builder + "'");
+                }
+                value = value * 10 + (c - '0');
+            }
+            longValue = start == 1 ? -value : value;
+            return longValue == (int) longValue ? INT : LONG;
+        }
+        String number = builder.toString();
+        try {
+            if (decimal) {
+                doubleValue = Double.parseDouble(number);
+                return DOUBLE;
+            }
+            BigInteger value = new BigInteger(number);
+            if (value.bitLength() < 64) {
+                longValue = value.longValue();
+                return longValue == (int) longValue ? INT : LONG;
+            }
+            bigValue = value;
+            return BIG;
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + number + "'");
+        }
+    }
+
+    private static boolean isNumberStart(int c) {
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    @NotNull
+    private static Number narrow(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    private void expectLiteral(@NotNull String literal) throws IOException, InvalidConfigurationException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected '" + literal + "'");
+            }
+        }
+    }
+
+    /**
+     * Returns the next non-whitespace character without consuming it.
+     */
+    private int peek() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return EOF;
+            }
+            char c = buffer[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    /**
+     * The remaining entries of the object being read, for codecs. Numbers and strings are read without boxing them or
+     * building a value first.
+     */
+    private final class EntrySource implements SerializationSource {
+
+        private boolean done;
+
+        @Nullable
+        @Override
+        public String nextKey() throws IOException, InvalidConfigurationException {
+            if (done || !nextInObject()) {
+                done = true;
+                return null;
+            }
+            return readKey();
+        }
+
+        @Nullable
+        @Override
+        public Object readValue() throws IOException, InvalidConfigurationException {
+            return JsonReader.this.readValue();
+        }
+
+        @Override
+        public void skipValue() throws IOException, InvalidConfigurationException {
+            JsonReader.this.skipValue();
+        }
+
+        @Override
+        public int readInt() throws IOException, InvalidConfigurationException {
+            if (!isNumberStart(peek())) {
+                return SerializationSource.super.readInt();
+            }
+            int kind = readNumberToken();
+            return kind == INT || kind == LONG ? (int) longValue : boxNumber(kind).intValue();
+        }
+
+        @Override
+        public long readLong() throws IOException, InvalidConfigurationException {
+            if (!isNumberStart(peek())) {
+                return SerializationSource.super.readLong();
+            }
+            int kind = readNumberToken();
+            return kind == INT || kind == LONG ? longValue : boxNumber(kind).longValue();
+        }
+
+        @Override
+        public double readDouble() throws IOException, InvalidConfigurationException {
+            if (!isNumberStart(peek())) {
+                return SerializationSource.super.readDouble();
+            }
+            int kind = readNumberToken();
+            return kind == DOUBLE ? doubleValue : boxNumber(kind).doubleValue();
+        }
+
+        @Nullable
+        @Override
+        public String readString() throws IOException, InvalidConfigurationException {
+            if (peek() != '"') {
+                return SerializationSource.super.readString();
+            }
+            pos++;
+            return JsonReader.this.readString();
+        }
+    }
+
+    @NotNull
+    private InvalidConfigurationException error(@NotNull String message) {
+        return new InvalidConfigurationException("Invalid JSON detected: " + message + " at position " + (consumed + pos) + ".");
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A {@link SerializationSink} writing compact JSON straight to a {@link Writer}.
+ * <p>
+ * The output matches the one produced by json-smart, so files written by either can be read by the other.
+ */
+public class JsonWriter implements SerializationSink {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    @NotNull
+    private final Writer out;
+    // whether the container at each depth has no elements yet
+    private boolean[] empty = new boolean[16];
+    private int depth;
+    private boolean afterKey;
+
+    public JsonWriter(@NotNull Writer out) {
+        this.out = out;
+    }
+
+    private void beforeValue() throws IOException {
+        if(afterKey) {
+            afterKey = false;
+        } else if(depth > 0) {
+            if(!empty[depth]) out.write(',');
+            empty[depth] = false;
+        }
+    }
+
+    private void push() {
+        if(++depth == empty.length) empty = Arrays.copyOf(empty, depth * 2);
+        empty[depth] = true;
+    }
+
+    private void pop() {
+        if(depth == 0) throw new IllegalStateException("No open map or list");
+        depth--;
+    }
+
+    @Override
+    public void beginMap(int size) throws IOException {
+        beforeValue();
+        out.write('{');
+        push();
+    }
+
+    @Override
+    public void key(@NotNull String key) throws IOException {
+        beforeValue();
+        writeString(key);
+        out.write(':');
+        afterKey = true;
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        pop();
+        out.write('}');
+    }
+
+    @Override
+    public void beginList(int size) throws IOException {
+        beforeValue();
+        out.write('[');
+        push();
+    }
+
+    @Override
+    public void endList() throws IOException {
+        pop();
+        out.write(']');
+    }
+
+    @Override
+    public void nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+    }
+
+    @Override
+    public void value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+    }
+
+    @Override
+    public void value(int value) throws IOException {
+        beforeValue();
+        out.write(Integer.toString(value));
+    }
+
+    @Override
+    public void value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void value(double value) throws IOException {
+        beforeValue();
+        out.write(Double.toString(value));
+    }
+
+    @Override
+    public void value(@NotNull Number value) throws IOException {
+        beforeValue();
+        out.write(value.toString());
+    }
+
+    @Override
+    public void value(@NotNull String value) throws IOException {
+        beforeValue();
+        writeString(value);
+    }
+
+    /**
+     * Writes a value which is already encoded as JSON, such as a part of a loaded document, as it is.
+     *
+     * @param json The text containing the encoded value.
+     * @param offset The start of the value in the text.
+     * @param length The length of the value.
+     * @throws IOException If the underlying writer throws an IOException.
+     */
+    public void rawValue(@NotNull String json, int offset, int length) throws IOException {
+        beforeValue();
+        out.write(json, offset, length);
+    }
+
+    /**
+     * Writes entries of the current map which are already encoded as JSON and separated by commas, as they are.
+     *
+     * @param json The text containing the encoded entries.
+     * @param offset The start of the entries in the text.
+     * @param length The length of the entries.
+     * @throws IOException If the underlying writer throws an IOException.
+     */
+    void rawEntries(@NotNull String json, int offset, int length) throws IOException {
+        if(length == 0) return;
+        if(afterKey) throw new IllegalStateException("Expected a value");
+        beforeValue();
+        out.write(json, offset, length);
+    }
+
+    private void writeString(@NotNull String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for(int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escaped;
+            switch (c) {
+                case '"': escaped = "\\\""; break;
+                case '\\': escaped = "\\\\"; break;
+                case '\b': escaped = "\\b"; break;
+                case '\f': escaped = "\\f"; break;
+                case '\n': escaped = "\\n"; break;
+                case '\r': escaped = "\\r"; break;
+                case '\t': escaped = "\\t"; break;
+                default:
+                    if(c >= ' ' && (c < '\u007f' || c > '\u009f') && (c < '\u2000' || c > '\u20ff')) continue;
+                    escaped = null;
+            }
+            if(i > start) out.write(value, start, i - start);
+            start = i + 1;
+            if(escaped != null) {
+                out.write(escaped);
+            } else {
+                out.write("\\u");
+                out.write(HEX[(c >> 12) & 0xF]);
+                out.write(HEX[(c >> 8) & 0xF]);
+                out.write(HEX[(c >> 4) & 0xF]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+        if(length > start) out.write(value, start, length - start);
+        out.write('"');
+    }
+
+    /**
+     * Flushes the underlying writer.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
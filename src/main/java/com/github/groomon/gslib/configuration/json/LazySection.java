@@ -0,0 +1,175 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemorySection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A section of a lazily loaded {@link JsonConfiguration} whose nested sections are parsed on first access, for
+ * configurations loaded with a {@link JsonConfigurationOptions#lazyDepth(int) lazy depth} above one.
+ * <p>
+ * Unparsed sections are kept as {@link RawSection}s in the map of their parent. Every access by path goes through
+ * {@link #get(String, Object)}, which parses them when they are reached. Listing the keys or values in depth, which
+ * reads the maps of the nested sections directly, parses everything below first.
+ */
+class LazySection extends MemorySection {
+
+    LazySection(@NotNull ConfigurationSection parent, @NotNull String path) {
+        super(parent, path);
+    }
+
+    @Nullable
+    @Override
+    public Object get(@NotNull String path, @Nullable Object def) {
+        Object value = super.get(path, def);
+        return value instanceof RawSection ? materialize(this, map, path) : value;
+    }
+
+    @NotNull
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        if (deep) {
+            materializeAll(this, map);
+        }
+        return super.getKeys(deep);
+    }
+
+    @NotNull
+    @Override
+    public Map<String, Object> getValues(boolean deep) {
+        if (deep) {
+            materializeAll(this, map);
+        } else {
+            materializeChildren(this, map);
+        }
+        return super.getValues(deep);
+    }
+
+    /**
+     * Gets the entries of this section, including the ones not parsed yet.
+     */
+    @NotNull
+    Map<String, Object> entries() {
+        return map;
+    }
+
+    /**
+     * Parses the unparsed section stored under the key in the map of the owner and replaces it by the result.
+     *
+     * @return The parsed section, or the deserialized object if the section turned out to be a serialized object.
+     */
+    @Nullable
+    static Object materialize(@NotNull ConfigurationSection owner, @NotNull Map<String, Object> map, @NotNull String key) {
+        Object value = map.get(key);
+        if (!(value instanceof RawSection)) {
+            return value;
+        }
+        RawSection raw = (RawSection) value;
+        try {
+            if (raw.depth > 0) {
+                Map<String, Object> entries = raw.reader().readLazyEntries(raw.source, raw.depth);
+                if (entries != null) {
+                    LazySection section = new LazySection(owner, key);
+                    putAll(section, section.map, entries);
+                    map.put(key, section);
+                    return section;
+                }
+            }
+            raw.reader().readEntry(owner, key);
+        } catch (IOException | InvalidConfigurationException e) {
+            // the syntax has been checked while loading
+            throw new IllegalStateException("Could not parse section " + key, e);
+        }
+        return map.get(key);
+    }
+
+    /**
+     * Stores the entries read for the owner in its map. Keys containing the path separator are split into sections
+     * like the eager reader does, which are created as lazy sections so the unparsed sections in them are found when
+     * they are accessed by path.
+     */
+    static void putAll(@NotNull ConfigurationSection owner, @NotNull Map<String, Object> map,
+                       @NotNull Map<String, Object> entries) throws IOException, InvalidConfigurationException {
+        char separator = owner.getRoot().options().pathSeparator();
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            put(owner, map, entry.getKey(), entry.getValue(), separator);
+        }
+    }
+
+    private static void put(@NotNull ConfigurationSection owner, @NotNull Map<String, Object> map, @NotNull String key,
+                            @NotNull Object value, char separator) throws IOException, InvalidConfigurationException {
+        int index = key.indexOf(separator);
+        if (index == -1) {
+            map.put(key, value);
+            return;
+        }
+        String node = key.substring(0, index);
+        String rest = key.substring(index + 1);
+        Object child = materialize(owner, map, node);
+        if (child instanceof LazySection) {
+            LazySection section = (LazySection) child;
+            put(section, section.map, rest, value, separator);
+        } else if (child instanceof ConfigurationSection) {
+            // a section which has been parsed completely, so the value is parsed as well
+            ConfigurationSection section = (ConfigurationSection) child;
+            if (value instanceof RawSection) {
+                ((RawSection) value).reader().readEntry(section, rest);
+            } else {
+                section.set(rest, value);
+            }
+        } else {
+            LazySection section = new LazySection(owner, node);
+            map.put(node, section);
+            put(section, section.map, rest, value, separator);
+        }
+    }
+
+    /**
+     * Parses the unparsed sections stored directly in the map of the owner.
+     */
+    static void materializeChildren(@NotNull ConfigurationSection owner, @NotNull Map<String, Object> map) {
+        // copied, a section deserialized to null is removed from the map
+        for (String key : new ArrayList<>(map.keySet())) {
+            materialize(owner, map, key);
+        }
+    }
+
+    /**
+     * Parses all unparsed sections stored in the map of the owner and below.
+     */
+    static void materializeAll(@NotNull ConfigurationSection owner, @NotNull Map<String, Object> map) {
+        materializeChildren(owner, map);
+        for (Object value : map.values()) {
+            if (value instanceof LazySection) {
+                LazySection section = (LazySection) value;
+                materializeAll(section, section.map);
+            }
+        }
+    }
+
+    /**
+     * Writes the entries of a section, writing the sections which have not been parsed as they were loaded.
+     */
+    static void write(@NotNull Map<String, Object> map, @NotNull JsonWriter writer) throws IOException {
+        writer.beginMap(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writer.key(entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof RawSection) {
+                ((RawSection) value).writeTo(writer);
+            } else if (value instanceof LazySection) {
+                write(((LazySection) value).map, writer);
+            } else {
+                SerializationHelper.serialize(value, writer);
+            }
+        }
+        writer.endMap();
+    }
+}
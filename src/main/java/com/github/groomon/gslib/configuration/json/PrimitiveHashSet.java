@@ -0,0 +1,189 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The part of {@link SerializableIntSet} and {@link SerializableLongSet} which does not depend on the element type.
+ * Subclasses hold the primitive hash table, in which 0 marks free slots, and implement lookups and insertions on it,
+ * while this class keeps the counts and implements removal by slot and iteration.
+ *
+ * @param <E> The boxed element type.
+ */
+abstract class PrimitiveHashSet<E> extends AbstractSet<E> {
+
+    static final int MIN_CAPACITY = 16;
+
+    // 0 marks free slots, so whether the set contains 0 is stored separately
+    boolean containsZero;
+    // the number of elements in the table
+    int used;
+    int maxUsed;
+    int modCount;
+
+    PrimitiveHashSet() {
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? used + 1 : used;
+    }
+
+    @Override
+    public void clear() {
+        if (size() == 0) {
+            return;
+        }
+        containsZero = false;
+        used = 0;
+        allocate(MIN_CAPACITY);
+        modCount++;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<E> iterator() {
+        return new SetIterator();
+    }
+
+    /**
+     * Replaces the table by an empty one of the given capacity.
+     */
+    void allocate(int capacity) {
+        newTable(capacity);
+        maxUsed = capacity / 4 * 3;
+    }
+
+    /**
+     * Removes the element at the given slot, moving the elements following it back so that every element stays
+     * reachable from its preferred slot.
+     *
+     * @param pos The slot to clear.
+     * @param wrapped Collects the elements which are moved from the start to the end of the table, or null.
+     */
+    void removeAt(int pos, @Nullable List<E> wrapped) {
+        int mask = capacity() - 1;
+        int last = pos;
+        for (pos = (pos + 1) & mask; !isFree(pos); pos = (pos + 1) & mask) {
+            int slot = preferredSlot(pos, mask);
+            // the element can move to the free slot if its preferred slot is not between the two
+            if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                if (wrapped != null && pos < last) {
+                    wrapped.add(elementAt(pos));
+                }
+                move(pos, last);
+                last = pos;
+            }
+        }
+        free(last);
+        used--;
+        modCount++;
+    }
+
+    /**
+     * The smallest power of two holding the given number of elements at a load factor of 3/4.
+     */
+    static int capacity(int size) {
+        long needed = (long) size * 4 / 3 + 1;
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many elements for a set: " + size);
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    abstract int capacity();
+
+    abstract void newTable(int capacity);
+
+    abstract boolean isFree(int pos);
+
+    /**
+     * @return The slot which the element at the given slot hashes to.
+     */
+    abstract int preferredSlot(int pos, int mask);
+
+    abstract void move(int from, int to);
+
+    abstract void free(int pos);
+
+    @NotNull
+    abstract E elementAt(int pos);
+
+    @NotNull
+    abstract E zero();
+
+    /**
+     * Walks the table backwards, so elements moved by a removal are either visited already or moved from the start
+     * to the end of the table, in which case they are collected and returned at the end.
+     */
+    private class SetIterator implements Iterator<E> {
+
+        private int pos = capacity();
+        private int remaining = size();
+        private boolean returnZero = containsZero;
+        // the slot of the last element, -1 if there is none, the capacity for 0 and -2 for a wrapped element
+        private int last = -1;
+        private E lastValue;
+        private List<E> wrapped;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            remaining--;
+            if (returnZero) {
+                returnZero = false;
+                last = capacity();
+                return lastValue = zero();
+            }
+            while (--pos >= 0) {
+                if (!isFree(pos)) {
+                    last = pos;
+                    return lastValue = elementAt(pos);
+                }
+            }
+            last = -2;
+            return lastValue = wrapped.get(-pos - 1);
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (last == capacity()) {
+                containsZero = false;
+                modCount++;
+            } else if (last >= 0) {
+                if (wrapped == null) {
+                    wrapped = new ArrayList<>(2);
+                }
+                removeAt(last, wrapped);
+            } else {
+                PrimitiveHashSet.this.remove(lastValue);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * An object of a lazily loaded {@link JsonConfiguration} which has not been parsed yet, kept as its range of the
+ * loaded text. It only ever lives in the map of a {@link JsonConfiguration} or {@link LazySection}, which replace it by
+ * the parsed section as soon as it is accessed.
+ */
+final class RawSection {
+
+    @NotNull
+    final String source;
+    final int start;
+    final int end;
+    // the number of levels of sections below this one which are kept unparsed as well
+    final int depth;
+
+    RawSection(@NotNull String source, int start, int end, int depth) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        this.depth = depth;
+    }
+
+    /**
+     * Creates a reader positioned at the start of the object.
+     */
+    @NotNull
+    JsonReader reader() throws IOException {
+        StringReader reader = new StringReader(source);
+        reader.skip(start);
+        return new JsonReader(reader, start);
+    }
+
+    void writeTo(@NotNull JsonWriter writer) throws IOException {
+        writer.rawValue(source, start, end - start);
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.SerializableAs;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of longs backed by an open addressing hash table, which can be stored in configurations.
+ * <p>
+ * Unlike a {@link SerializableSet} wrapping a {@link java.util.HashSet}, it does not hold a boxed object and a node
+ * per element, so it takes a fraction of the memory. It is stored as a packed list of longs and loaded without boxing
+ * the elements. It is a regular {@link java.util.Set} of {@link Long}s, boxing only when elements are accessed
+ * through that interface. The primitive accessors, such as {@link #containsLong(long)}, never box.
+ */
+@SerializableAs("longset")
+public class SerializableLongSet extends PrimitiveHashSet<Long> implements ConfigurationSerializable {
+
+    @NotNull
+    private long[] table;
+
+    public SerializableLongSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a set which holds the given number of elements without growing.
+     *
+     * @param expectedSize The number of elements.
+     */
+    public SerializableLongSet(int expectedSize) {
+        Validate.isTrue(expectedSize >= 0, "Expected size cannot be negative");
+        allocate(capacity(expectedSize));
+    }
+
+    /**
+     * Creates a set containing the given values.
+     *
+     * @param values The values of the set.
+     */
+    public SerializableLongSet(@NotNull long[] values) {
+        Validate.notNull(values, "Values cannot be null");
+        allocate(capacity(values.length));
+        for (long value : values) {
+            addLong(value);
+        }
+    }
+
+    public SerializableLongSet(@NotNull Map<String, Object> serializedForm) {
+        Object o = serializedForm.get("contents");
+        if (o instanceof IntArrayList && ((IntArrayList) o).isPacked()) {
+            IntArrayList contents = (IntArrayList) o;
+            allocate(capacity(contents.size()));
+            for (int i = 0; i < contents.size(); i++) {
+                addLong(contents.getInt(i));
+            }
+        } else if (o instanceof LongArrayList && ((LongArrayList) o).isPacked()) {
+            LongArrayList contents = (LongArrayList) o;
+            allocate(capacity(contents.size()));
+            for (int i = 0; i < contents.size(); i++) {
+                addLong(contents.getLong(i));
+            }
+        } else if (o instanceof List) {
+            List<?> contents = (List<?>) o;
+            allocate(capacity(contents.size()));
+            for (Object element : contents) {
+                if (!(element instanceof Number)) {
+                    throw new IllegalArgumentException("Element of long set is not a number: " + element);
+                }
+                Number number = (Number) element;
+                long value = number.longValue();
+                // a fraction or a larger number would silently become another element
+                if (value != number.doubleValue()) {
+                    throw new IllegalArgumentException("Element of long set is not a long: " + element);
+                }
+                addLong(value);
+            }
+        } else {
+            allocate(MIN_CAPACITY);
+        }
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        return Collections.singletonMap("contents", LongArrayList.wrap(toLongArray(), size()));
+    }
+
+    public boolean containsLong(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int pos = mix(value) & mask; table[pos] != 0; pos = (pos + 1) & mask) {
+            if (table[pos] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean addLong(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            modCount++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int pos = mix(value) & mask;
+        for (; table[pos] != 0; pos = (pos + 1) & mask) {
+            if (table[pos] == value) {
+                return false;
+            }
+        }
+        table[pos] = value;
+        modCount++;
+        if (++used > maxUsed) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean removeLong(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            modCount++;
+            return true;
+        }
+        int mask = table.length - 1;
+        for (int pos = mix(value) & mask; table[pos] != 0; pos = (pos + 1) & mask) {
+            if (table[pos] == value) {
+                removeAt(pos, null);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calls the action for every element, without boxing them.
+     *
+     * @param action The action to call.
+     */
+    public void forEachLong(@NotNull LongConsumer action) {
+        Validate.notNull(action, "Action cannot be null");
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Copies the elements into a new array, in no particular order.
+     *
+     * @return The elements.
+     */
+    @NotNull
+    public long[] toLongArray() {
+        long[] values = new long[size()];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = 0;
+        }
+        for (long value : table) {
+            if (value != 0) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && containsLong((Long) o);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && removeLong((Long) o);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SerializableLongSet)) {
+            return super.equals(o);
+        }
+        SerializableLongSet other = (SerializableLongSet) o;
+        if (other.size() != size() || other.containsZero != containsZero) {
+            return false;
+        }
+        for (long value : table) {
+            if (value != 0 && !other.containsLong(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long value : table) {
+            hash += Long.hashCode(value);
+        }
+        return hash;
+    }
+
+    @Override
+    int capacity() {
+        return table.length;
+    }
+
+    @Override
+    void newTable(int capacity) {
+        table = new long[capacity];
+    }
+
+    @Override
+    boolean isFree(int pos) {
+        return table[pos] == 0;
+    }
+
+    @Override
+    int preferredSlot(int pos, int mask) {
+        return mix(table[pos]) & mask;
+    }
+
+    @Override
+    void move(int from, int to) {
+        table[to] = table[from];
+    }
+
+    @Override
+    void free(int pos) {
+        table[pos] = 0;
+    }
+
+    @NotNull
+    @Override
+    Long elementAt(int pos) {
+        return table[pos];
+    }
+
+    @NotNull
+    @Override
+    Long zero() {
+        return 0L;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int pos = mix(value) & mask;
+                while (table[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = value;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
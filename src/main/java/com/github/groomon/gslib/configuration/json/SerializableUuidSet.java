@@ -0,0 +1,430 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.SerializableAs;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * A set of {@link UUID}s backed by an open addressing hash table of their bits, which can be stored in
+ * configurations.
+ * <p>
+ * Unlike a {@link SerializableSet} wrapping a {@link java.util.HashSet}, it does not hold a UUID object and a node per
+ * element, so it takes a fraction of the memory. It is stored as a packed list of longs, holding the most and least
+ * significant bits of each UUID in turn, and loaded without creating UUID objects. Lists of UUID strings are loaded
+ * as well, so sets can be written by hand. UUIDs are only created when the elements are iterated.
+ */
+@SerializableAs("uuidset")
+public class SerializableUuidSet extends AbstractSet<UUID> implements ConfigurationSerializable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // the bits of each element in turn, the nil UUID marks free slots, so whether the set contains it is stored
+    // separately
+    @NotNull
+    private long[] table;
+    private boolean containsNil;
+    // the number of elements in the table
+    private int used;
+    private int maxUsed;
+    private int modCount;
+
+    public SerializableUuidSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a set which holds the given number of elements without growing.
+     *
+     * @param expectedSize The number of elements.
+     */
+    public SerializableUuidSet(int expectedSize) {
+        Validate.isTrue(expectedSize >= 0, "Expected size cannot be negative");
+        allocate(capacity(expectedSize));
+    }
+
+    /**
+     * Creates a set containing the given UUIDs.
+     *
+     * @param uuids The UUIDs of the set.
+     */
+    public SerializableUuidSet(@NotNull Collection<UUID> uuids) {
+        Validate.notNull(uuids, "UUIDs cannot be null");
+        allocate(capacity(uuids.size()));
+        addAll(uuids);
+    }
+
+    public SerializableUuidSet(@NotNull Map<String, Object> serializedForm) {
+        Object o = serializedForm.get("contents");
+        if (o instanceof LongArrayList && ((LongArrayList) o).isPacked()) {
+            LongArrayList contents = (LongArrayList) o;
+            if (contents.size() % 2 != 0) {
+                throw new IllegalArgumentException("UUID set has an odd number of longs: " + contents.size());
+            }
+            allocate(capacity(contents.size() / 2));
+            for (int i = 0; i < contents.size(); i += 2) {
+                add(contents.getLong(i), contents.getLong(i + 1));
+            }
+        } else if (o instanceof List) {
+            List<?> contents = (List<?>) o;
+            if (!contents.isEmpty() && contents.get(0) instanceof Number) {
+                readBits(contents);
+            } else {
+                allocate(capacity(contents.size()));
+                for (Object element : contents) {
+                    if (!(element instanceof String)) {
+                        throw new IllegalArgumentException("Element of UUID set is not a string: " + element);
+                    }
+                    UUID uuid = UUID.fromString((String) element);
+                    add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                }
+            }
+        } else {
+            allocate(MIN_CAPACITY);
+        }
+    }
+
+    private void readBits(@NotNull List<?> contents) {
+        if (contents.size() % 2 != 0) {
+            throw new IllegalArgumentException("UUID set has an odd number of longs: " + contents.size());
+        }
+        allocate(capacity(contents.size() / 2));
+        for (int i = 0; i < contents.size(); i += 2) {
+            Object most = contents.get(i);
+            Object least = contents.get(i + 1);
+            if (!(most instanceof Number) || !(least instanceof Number)) {
+                throw new IllegalArgumentException("Element of UUID set is not a number: " + (most instanceof Number ? least : most));
+            }
+            add(bits((Number) most), bits((Number) least));
+        }
+    }
+
+    private static long bits(@NotNull Number number) {
+        long value = number.longValue();
+        // a fraction or a larger number would silently become another UUID
+        if (value != number.doubleValue()) {
+            throw new IllegalArgumentException("Element of UUID set is not a long: " + number);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        long[] bits = toLongArray();
+        return Collections.singletonMap("contents", LongArrayList.wrap(bits, bits.length));
+    }
+
+    public boolean contains(long mostSigBits, long leastSigBits) {
+        if (mostSigBits == 0 && leastSigBits == 0) {
+            return containsNil;
+        }
+        return find(mostSigBits, leastSigBits) >= 0;
+    }
+
+    public boolean add(long mostSigBits, long leastSigBits) {
+        if (mostSigBits == 0 && leastSigBits == 0) {
+            if (containsNil) {
+                return false;
+            }
+            containsNil = true;
+            modCount++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int pos = mix(mostSigBits, leastSigBits) & mask;
+        for (; !isFree(pos); pos = (pos + 2) & mask) {
+            if (table[pos] == mostSigBits && table[pos + 1] == leastSigBits) {
+                return false;
+            }
+        }
+        table[pos] = mostSigBits;
+        table[pos + 1] = leastSigBits;
+        modCount++;
+        if (++used > maxUsed) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long mostSigBits, long leastSigBits) {
+        if (mostSigBits == 0 && leastSigBits == 0) {
+            if (!containsNil) {
+                return false;
+            }
+            containsNil = false;
+            modCount++;
+            return true;
+        }
+        int pos = find(mostSigBits, leastSigBits);
+        if (pos < 0) {
+            return false;
+        }
+        removeAt(pos, null);
+        return true;
+    }
+
+    /**
+     * Copies the bits of the elements into a new array, in no particular order, in the form they are stored in.
+     *
+     * @return The most and least significant bits of each element in turn.
+     */
+    @NotNull
+    public long[] toLongArray() {
+        long[] bits = new long[size() * 2];
+        int i = containsNil ? 2 : 0;
+        for (int pos = 0; pos < table.length; pos += 2) {
+            if (!isFree(pos)) {
+                bits[i++] = table[pos];
+                bits[i++] = table[pos + 1];
+            }
+        }
+        return bits;
+    }
+
+    @Override
+    public int size() {
+        return containsNil ? used + 1 : used;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof UUID)) {
+            return false;
+        }
+        UUID uuid = (UUID) o;
+        return contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    @Override
+    public boolean add(UUID uuid) {
+        return add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof UUID)) {
+            return false;
+        }
+        UUID uuid = (UUID) o;
+        return remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    @Override
+    public void clear() {
+        if (size() == 0) {
+            return;
+        }
+        containsNil = false;
+        used = 0;
+        allocate(MIN_CAPACITY);
+        modCount++;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<UUID> iterator() {
+        return new SetIterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SerializableUuidSet)) {
+            return super.equals(o);
+        }
+        SerializableUuidSet other = (SerializableUuidSet) o;
+        if (other.size() != size() || other.containsNil != containsNil) {
+            return false;
+        }
+        for (int pos = 0; pos < table.length; pos += 2) {
+            if (!isFree(pos) && other.find(table[pos], table[pos + 1]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int pos = 0; pos < table.length; pos += 2) {
+            // the hash code of UUID
+            long bits = table[pos] ^ table[pos + 1];
+            hash += (int) (bits >> 32) ^ (int) bits;
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the slot of an element which is not the nil UUID.
+     *
+     * @return The index of its most significant bits in the table, or -1 if it is not in the set.
+     */
+    private int find(long mostSigBits, long leastSigBits) {
+        int mask = table.length - 1;
+        for (int pos = mix(mostSigBits, leastSigBits) & mask; !isFree(pos); pos = (pos + 2) & mask) {
+            if (table[pos] == mostSigBits && table[pos + 1] == leastSigBits) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isFree(int pos) {
+        return table[pos] == 0 && table[pos + 1] == 0;
+    }
+
+    /**
+     * Removes the element at the given slot, moving the elements following it back so that every element stays
+     * reachable from its preferred slot.
+     *
+     * @param pos The slot to clear.
+     * @param wrapped Collects the bits of the elements which are moved from the start to the end of the table, or null.
+     */
+    private void removeAt(int pos, @Nullable LongArrayList wrapped) {
+        int mask = table.length - 1;
+        int last = pos;
+        for (pos = (pos + 2) & mask; !isFree(pos); pos = (pos + 2) & mask) {
+            int slot = mix(table[pos], table[pos + 1]) & mask;
+            // the element can move to the free slot if its preferred slot is not between the two
+            if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                if (wrapped != null && pos < last) {
+                    wrapped.addLong(table[pos]);
+                    wrapped.addLong(table[pos + 1]);
+                }
+                table[last] = table[pos];
+                table[last + 1] = table[pos + 1];
+                last = pos;
+            }
+        }
+        table[last] = 0;
+        table[last + 1] = 0;
+        used--;
+        modCount++;
+    }
+
+    private void rehash(int length) {
+        long[] old = table;
+        allocate(length);
+        int mask = length - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                int pos = mix(old[i], old[i + 1]) & mask;
+                while (!isFree(pos)) {
+                    pos = (pos + 2) & mask;
+                }
+                table[pos] = old[i];
+                table[pos + 1] = old[i + 1];
+            }
+        }
+    }
+
+    /**
+     * @param length The length of the table, twice the number of slots.
+     */
+    private void allocate(int length) {
+        table = new long[length];
+        maxUsed = length / 8 * 3;
+    }
+
+    /**
+     * The length of the table holding the given number of elements at a load factor of 3/4, twice the smallest power
+     * of two of slots.
+     */
+    private static int capacity(int size) {
+        long needed = (long) size * 4 / 3 + 1;
+        if (needed > 1 << 29) {
+            throw new IllegalArgumentException("Too many elements for a UUID set: " + size);
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) needed - 1) << 2);
+    }
+
+    /**
+     * The preferred slot of an element, as index of its most significant bits before masking.
+     */
+    private static int mix(long mostSigBits, long leastSigBits) {
+        long hash = (mostSigBits * 31 + leastSigBits) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) << 1;
+    }
+
+    /**
+     * Walks the table backwards, so elements moved by a removal are either visited already or moved from the start
+     * to the end of the table, in which case they are collected and returned at the end.
+     */
+    private class SetIterator implements Iterator<UUID> {
+
+        private int pos = table.length;
+        private int remaining = size();
+        private boolean returnNil = containsNil;
+        // the slot of the last element, -1 if there is none, table.length for the nil UUID and -2 for a wrapped
+        // element
+        private int last = -1;
+        private UUID lastValue;
+        private LongArrayList wrapped;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public UUID next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            remaining--;
+            if (returnNil) {
+                returnNil = false;
+                last = table.length;
+                return lastValue = new UUID(0, 0);
+            }
+            while ((pos -= 2) >= 0) {
+                if (!isFree(pos)) {
+                    last = pos;
+                    return lastValue = new UUID(table[pos], table[pos + 1]);
+                }
+            }
+            last = -2;
+            int index = -pos - 2;
+            return lastValue = new UUID(wrapped.getLong(index), wrapped.getLong(index + 1));
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (last == table.length) {
+                containsNil = false;
+                modCount++;
+            } else if (last >= 0) {
+                if (wrapped == null) {
+                    wrapped = new LongArrayList(4);
+                }
+                removeAt(last, wrapped);
+            } else {
+                SerializableUuidSet.this.remove(lastValue);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Writes and reads the fields of a serializable class directly, instead of going through the map returned by
+ * {@link ConfigurationSerializable#serialize()} and passed to its factory.
+ * <p>
+ * Codecs are usually generated for classes annotated with {@link com.github.groomon.gslib.configuration.codec.GenerateCodec}
+ * and have to be registered with {@link SerializationHelper#registerCodec(SerializationCodec)}. The class still has
+ * to be registered with {@link org.bukkit.configuration.serialization.ConfigurationSerialization}, which provides its
+ * alias, and is still serialized through its map by other configurations.
+ *
+ * @param <T> The serializable class.
+ */
+public interface SerializationCodec<T extends ConfigurationSerializable> {
+
+    @NotNull
+    Class<T> getType();
+
+    /**
+     * Writes the entries of a value, each as a key followed by its value. The map and the type key are written by
+     * the caller.
+     *
+     * @param value The value to write.
+     * @param sink The sink to write to.
+     * @throws IOException If the sink throws an IOException.
+     */
+    void write(@NotNull T value, @NotNull SerializationSink sink) throws IOException;
+
+    /**
+     * Reads a value from the entries following its type key. Entries which are not read are skipped by the caller.
+     *
+     * @param source The entries of the value.
+     * @return The value.
+     * @throws IOException If the input cannot be read.
+     * @throws InvalidConfigurationException If the entries do not form a valid value.
+     */
+    @NotNull
+    T read(@NotNull SerializationSource source) throws IOException, InvalidConfigurationException;
+}
@@ -1,12 +1,28 @@
 package com.github.groomon.gslib.configuration.json;
 
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.apache.commons.lang.Validate;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,11 +34,119 @@ public class SerializationHelper {
 
     private static final Logger LOG = Logger.getLogger(SerializationHelper.class.getName());
 
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(ConfigurationSerializable.class, Map.class);
+
+    /**
+     * The aliases of serializable classes, which only depend on their annotations.
+     */
+    private static final ClassValue<String> ALIASES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return ConfigurationSerialization.getAlias(type.asSubclass(ConfigurationSerializable.class));
+        }
+    };
+
+    /**
+     * The resolved factories by alias. An entry is only used while the alias is still registered to the same class,
+     * so classes registered again, for example after a plugin reload, are resolved again.
+     */
+    private static final Map<String, Deserializer> DESERIALIZERS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, SerializationCodec<?>> CODECS = new ConcurrentHashMap<>();
+    private static final Map<String, SerializationCodec<?>> CODECS_BY_ALIAS = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a codec, which is used instead of the map of its class from then on. Replaces a codec registered for
+     * the same class before.
+     * <p>
+     * Files written with a codec are read with {@code deserialize(Map)} of the class wherever the codec is not
+     * registered, so the codec has to write every key {@link ConfigurationSerializable#serialize()} returns. This is
+     * checked on an object created by the codec from no entries.
+     *
+     * @param codec The codec to register.
+     * @throws IllegalArgumentException If the codec does not write all keys returned by {@code serialize()}.
+     */
+    public static void registerCodec(@NotNull SerializationCodec<?> codec) {
+        Validate.notNull(codec, "Codec cannot be null");
+        checkKeys(codec);
+        Class<?> type = codec.getType();
+        SerializationCodec<?> previous = CODECS.put(type, codec);
+        if (previous != null) {
+            CODECS_BY_ALIAS.values().remove(previous);
+        }
+        CODECS_BY_ALIAS.put(getAlias(codec.getType()), codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void checkKeys(@NotNull SerializationCodec<?> codec) {
+        Map<String, Object> serialized;
+        KeyCollector written = new KeyCollector();
+        try {
+            ConfigurationSerializable value = codec.read(new MapSource(Collections.emptyMap()));
+            serialized = value.serialize();
+            ((SerializationCodec<ConfigurationSerializable>) codec).write(value, written);
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            // the class needs entries to be created or serialized, so the keys cannot be compared
+            return;
+        }
+        Set<String> missing = new LinkedHashSet<>(serialized.keySet());
+        missing.removeAll(written.keys);
+        missing.remove(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+        Validate.isTrue(missing.isEmpty(), "The codec of " + codec.getType().getName() + " does not write the keys "
+                + missing + " returned by serialize(), files written with it could not be read without the codec");
+    }
+
+    /**
+     * Removes the codec of a class, for example when the plugin it belongs to is disabled.
+     *
+     * @param type The class whose codec to remove.
+     */
+    public static void unregisterCodec(@NotNull Class<? extends ConfigurationSerializable> type) {
+        Validate.notNull(type, "Type cannot be null");
+        SerializationCodec<?> codec = CODECS.remove(type);
+        if (codec != null) {
+            CODECS_BY_ALIAS.values().remove(codec);
+        }
+    }
+
+    /**
+     * Gets the codec of the class an alias is currently registered to.
+     *
+     * @param alias The alias stored under the type key.
+     * @return The codec, or null if the alias is not registered or its class has no codec.
+     */
+    @Nullable
+    public static SerializationCodec<?> getCodec(@NotNull String alias) {
+        SerializationCodec<?> codec = CODECS_BY_ALIAS.get(alias);
+        // the alias might have been registered to another class since
+        if (codec == null || ConfigurationSerialization.getClassByAlias(alias) != codec.getType()) {
+            return null;
+        }
+        return codec;
+    }
+
+    /**
+     * Reads a serialized object with a codec and skips the entries the codec has not read.
+     *
+     * @param codec The codec of the object.
+     * @param source The entries following the type key.
+     * @return The object.
+     */
+    @NotNull
+    public static Object read(@NotNull SerializationCodec<?> codec, @NotNull SerializationSource source)
+            throws IOException, InvalidConfigurationException {
+        Object result = codec.read(source);
+        while (source.nextKey() != null) {
+            source.skipValue();
+        }
+        return result;
+    }
+
     public static Object serialize(@NotNull Object value) {
         if (value instanceof Object[]) {
             value = new ArrayList<>(Arrays.asList((Object[]) value));
         }
-        if (value instanceof Set && !(value instanceof SerializableSet)) {
+        if (value instanceof Set && !(value instanceof ConfigurationSerializable)) {
             value = new SerializableSet((Set) value);
         }
         if (value instanceof ConfigurationSection) {
@@ -34,7 +158,7 @@ public class SerializationHelper {
         } else if (value instanceof ConfigurationSerializable) {
             ConfigurationSerializable serializable = (ConfigurationSerializable) value;
             Map<String, Object> values = new LinkedHashMap<>();
-            values.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+            values.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, getAlias(serializable.getClass()));
             values.putAll(serializable.serialize());
             return buildMap(values);
         } else {
@@ -42,6 +166,232 @@ public class SerializationHelper {
         }
     }
 
+    /**
+     * Serializes the value the same way as {@link #serialize(Object)}, but writes it to the given sink as it goes
+     * instead of building a copy of it.
+     *
+     * @param value The value to serialize.
+     * @param sink The sink receiving the serialized form.
+     * @throws IOException If the sink throws an IOException.
+     */
+    @SuppressWarnings("unchecked")
+    public static void serialize(@Nullable Object value, @NotNull SerializationSink sink) throws IOException {
+        if (value instanceof Object[]) {
+            value = Arrays.asList((Object[]) value);
+        }
+        if (value instanceof Set && !(value instanceof ConfigurationSerializable)) {
+            value = new SerializableSet((Set) value);
+        }
+        if (value == null) {
+            sink.nullValue();
+        } else if (value instanceof String) {
+            sink.value((String) value);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, sink);
+        } else if (value instanceof Boolean) {
+            sink.value((Boolean) value);
+        } else if (value instanceof ConfigurationSection) {
+            writeMap(((ConfigurationSection) value).getValues(false), sink);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, sink);
+        } else if (value instanceof IntArrayList && ((IntArrayList) value).isPacked()) {
+            sink.value((IntArrayList) value);
+        } else if (value instanceof LongArrayList && ((LongArrayList) value).isPacked()) {
+            sink.value((LongArrayList) value);
+        } else if (value instanceof DoubleArrayList && ((DoubleArrayList) value).isPacked()) {
+            sink.value((DoubleArrayList) value);
+        } else if (value instanceof List) {
+            writeList((List<?>) value, sink);
+        } else if (value instanceof ConfigurationSerializable) {
+            ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+            SerializationCodec<ConfigurationSerializable> codec = (SerializationCodec<ConfigurationSerializable>) CODECS.get(value.getClass());
+            if (codec != null) {
+                sink.beginMap(-1);
+                sink.key(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+                sink.value(getAlias(serializable.getClass()));
+                codec.write(serializable, sink);
+                sink.endMap();
+                return;
+            }
+            Map<String, Object> values;
+            try {
+                values = serializable.serialize();
+            } catch (final Exception e) {
+                LOG.log(Level.WARNING, "Error while serializing " + serializable.getClass().getName() + ".", e);
+                sink.nullValue();
+                return;
+            }
+            sink.beginMap(values.size() + 1);
+            sink.key(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+            sink.value(getAlias(serializable.getClass()));
+            for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                sink.key(entry.getKey());
+                serialize(entry.getValue(), sink);
+            }
+            sink.endMap();
+        } else if (value instanceof Collection) {
+            writeList((Collection<?>) value, sink);
+        } else {
+            sink.value(value.toString());
+        }
+    }
+
+    /**
+     * Serializes the value the same way as {@link #serialize(Object, SerializationSink)}, but splits maps and sections
+     * holding at least the given number of values, counting nested values, into chunks of consecutive entries. The
+     * chunks are serialized in parallel into separate buffers and written in order once they are done, so the output
+     * is the same. Large maps within chunks are split the same way.
+     * <p>
+     * The chunks run in the fork join pool of the calling thread, or the common pool if it does not belong to one.
+     * The first chunk is written by the calling thread. The value must not be modified until this method returns.
+     *
+     * @param value The value to serialize.
+     * @param writer The writer receiving the serialized form.
+     * @param threshold The number of values a chunk holds at least.
+     * @throws IOException If the writer throws an IOException.
+     */
+    public static void serializeParallel(@Nullable Object value, @NotNull JsonWriter writer, int threshold) throws IOException {
+        Validate.notNull(writer, "Writer cannot be null");
+        Validate.isTrue(threshold > 0, "Threshold has to be positive");
+        if (value instanceof ConfigurationSection) {
+            value = ((ConfigurationSection) value).getValues(false);
+        }
+        if (value instanceof Map) {
+            writeMapParallel((Map<?, ?>) value, writer, threshold);
+        } else {
+            serialize(value, writer);
+        }
+    }
+
+    private static void writeMapParallel(@NotNull Map<?, ?> map, @NotNull JsonWriter writer, int threshold) throws IOException {
+        int size = map.size();
+        String[] keys = new String[size];
+        Object[] values = new Object[size];
+        boolean[] large = new boolean[size];
+        // the index of the first entry of each chunk, followed by the size of the map
+        IntArrayList bounds = new IntArrayList();
+        bounds.addInt(0);
+        int i = 0;
+        int weight = 0;
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof ConfigurationSection) {
+                value = ((ConfigurationSection) value).getValues(false);
+            }
+            int count = count(value, threshold);
+            keys[i] = entry.getKey().toString();
+            values[i] = value;
+            large[i] = value instanceof Map && count >= threshold;
+            i++;
+            weight += count;
+            if (weight >= threshold && i < size) {
+                bounds.addInt(i);
+                weight = 0;
+            }
+        }
+        bounds.addInt(size);
+
+        int chunks = bounds.size() - 1;
+        List<ForkJoinTask<String>> tasks = new ArrayList<>(chunks);
+        // forked in reverse, so the next chunk is on top of the queue of this thread when it is joined
+        for (int chunk = chunks - 1; chunk > 0; chunk--) {
+            int from = bounds.getInt(chunk);
+            int to = bounds.getInt(chunk + 1);
+            tasks.add(ForkJoinTask.adapt(() -> writeChunk(keys, values, large, from, to, threshold)).fork());
+        }
+        writer.beginMap(size);
+        writeEntries(keys, values, large, 0, bounds.getInt(1), writer, threshold);
+        for (int task = tasks.size() - 1; task >= 0; task--) {
+            String json = tasks.get(task).join();
+            writer.rawEntries(json, 1, json.length() - 2);
+        }
+        writer.endMap();
+    }
+
+    /**
+     * Serializes a chunk of entries into a map of its own, to be written without its braces.
+     */
+    @NotNull
+    private static String writeChunk(@NotNull String[] keys, @NotNull Object[] values, @NotNull boolean[] large,
+                                     int from, int to, int threshold) {
+        StringWriter buffer = new StringWriter();
+        JsonWriter writer = new JsonWriter(buffer);
+        try {
+            writer.beginMap(to - from);
+            writeEntries(keys, values, large, from, to, writer, threshold);
+            writer.endMap();
+        } catch (IOException e) {
+            // a StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    private static void writeEntries(@NotNull String[] keys, @NotNull Object[] values, @NotNull boolean[] large,
+                                     int from, int to, @NotNull JsonWriter writer, int threshold) throws IOException {
+        for (int i = from; i < to; i++) {
+            writer.key(keys[i]);
+            if (large[i]) {
+                writeMapParallel((Map<?, ?>) values[i], writer, threshold);
+            } else {
+                serialize(values[i], writer);
+            }
+        }
+    }
+
+    /**
+     * Counts the values of a value for splitting maps into chunks, stopping once the limit is reached.
+     */
+    private static int count(@Nullable Object value, int limit) {
+        if (value instanceof ConfigurationSection) {
+            value = ((ConfigurationSection) value).getValues(false);
+        }
+        if (value instanceof Map) {
+            int count = 1;
+            for (Object child : ((Map<?, ?>) value).values()) {
+                count += count(child, limit - count);
+                if (count >= limit) {
+                    return count;
+                }
+            }
+            return count;
+        } else if (value instanceof Collection) {
+            return 1 + ((Collection<?>) value).size();
+        } else if (value instanceof Object[]) {
+            return 1 + ((Object[]) value).length;
+        }
+        return 1;
+    }
+
+    private static void writeList(@NotNull final Collection<?> collection, @NotNull SerializationSink sink) throws IOException {
+        sink.beginList(collection.size());
+        for (Object o : collection) {
+            serialize(o, sink);
+        }
+        sink.endList();
+    }
+
+    private static void writeMap(@NotNull final Map<?, ?> map, @NotNull SerializationSink sink) throws IOException {
+        sink.beginMap(map.size());
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            sink.key(entry.getKey().toString());
+            serialize(entry.getValue(), sink);
+        }
+        sink.endMap();
+    }
+
+    private static void writeNumber(@NotNull Number number, @NotNull SerializationSink sink) throws IOException {
+        if (number instanceof Integer) {
+            sink.value(number.intValue());
+        } else if (number instanceof Long) {
+            sink.value(number.longValue());
+        } else if (number instanceof Double) {
+            sink.value(number.doubleValue());
+        } else {
+            sink.value(number);
+        }
+    }
+
     /**
      * Takes a Map and parses through the values, to ensure that, before saving, all objects are as appropriate as
      * possible for storage in most data formats.
@@ -113,14 +463,264 @@ public class SerializationHelper {
                 output.put(e.getKey().toString(), e.getValue());
             }
         }
-        if (output.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+        return deserializeObject(output);
+    }
+
+    /**
+     * Deserializes a map whose values have already been deserialized, if it carries the
+     * {@link ConfigurationSerialization#SERIALIZED_TYPE_KEY}.
+     *
+     * @return The deserialized object, or the map itself if it does not carry the type key.
+     */
+    public static Object deserializeObject(@NotNull final Map<String, Object> input) {
+        if (!input.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+            return input;
+        }
+        Object alias = input.get(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+        Class<? extends ConfigurationSerializable> type = alias instanceof String
+                ? ConfigurationSerialization.getClassByAlias((String) alias) : null;
+        try {
+            if (type == null) {
+                // let bukkit report the missing class
+                return ConfigurationSerialization.deserializeObject(input);
+            }
+            SerializationCodec<?> codec = getCodec((String) alias);
+            if (codec != null) {
+                return read(codec, new MapSource(input));
+            }
+            Deserializer deserializer = DESERIALIZERS.get(alias);
+            if (deserializer == null || deserializer.type != type) {
+                deserializer = new Deserializer(type);
+                DESERIALIZERS.put((String) alias, deserializer);
+            }
+            return deserializer.deserialize(input);
+        } catch (IllegalArgumentException | IOException | InvalidConfigurationException ex) {
+            throw new YAMLException("Could not deserialize object", ex);
+        }
+    }
+
+    /**
+     * Converts a value read from a configuration to the given type, see {@link SerializationSource#readValue(Class)}.
+     */
+    @Nullable
+    static <T> T convert(@Nullable Object value, @NotNull Class<T> type) throws InvalidConfigurationException {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Integer.class) {
+                return type.cast(number.intValue());
+            } else if (type == Long.class) {
+                return type.cast(number.longValue());
+            } else if (type == Double.class) {
+                return type.cast(number.doubleValue());
+            } else if (type == Float.class) {
+                return type.cast(number.floatValue());
+            } else if (type == Short.class) {
+                return type.cast(number.shortValue());
+            } else if (type == Byte.class) {
+                return type.cast(number.byteValue());
+            }
+        }
+        throw new InvalidConfigurationException("Expected " + type.getSimpleName() + " but found "
+                + value.getClass().getSimpleName() + ".");
+    }
+
+    /**
+     * Gets the alias a class is serialized as, without looking up its annotations every time.
+     *
+     * @see ConfigurationSerialization#getAlias(Class)
+     */
+    @NotNull
+    public static String getAlias(@NotNull Class<? extends ConfigurationSerializable> type) {
+        return ALIASES.get(type);
+    }
+
+    /**
+     * Creates instances of a serializable class the same way as {@link ConfigurationSerialization}, trying a static
+     * {@code deserialize(Map)} method, a static {@code valueOf(Map)} method and a {@code Map} constructor in this
+     * order. The reflective lookup is done once, the factories are then called through method handles.
+     */
+    private static final class Deserializer {
+
+        @NotNull
+        private final Class<? extends ConfigurationSerializable> type;
+        @NotNull
+        private final List<MethodHandle> factories = new ArrayList<>(3);
+        @NotNull
+        private final List<String> descriptions = new ArrayList<>(3);
+        // whether a factory could not be accessed through a method handle
+        private boolean inaccessible;
+
+        private Deserializer(@NotNull Class<? extends ConfigurationSerializable> type) {
+            this.type = type;
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            try {
+                for (String name : new String[]{"deserialize", "valueOf"}) {
+                    Method method = findMethod(name);
+                    if (method != null) {
+                        factories.add(lookup.unreflect(method).asType(FACTORY_TYPE));
+                        descriptions.add("method '" + name + "' of " + type);
+                    }
+                }
+                Constructor<? extends ConfigurationSerializable> constructor = findConstructor();
+                if (constructor != null) {
+                    factories.add(lookup.unreflectConstructor(constructor).asType(FACTORY_TYPE));
+                    descriptions.add("constructor '" + constructor + "' of " + type);
+                }
+            } catch (IllegalAccessException e) {
+                inaccessible = true;
+            }
+        }
+
+        @Nullable
+        private Method findMethod(@NotNull String name) {
+            try {
+                Method method = type.getDeclaredMethod(name, Map.class);
+                if (!ConfigurationSerializable.class.isAssignableFrom(method.getReturnType())) {
+                    return null;
+                }
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    return null;
+                }
+                return method;
+            } catch (NoSuchMethodException | SecurityException ex) {
+                return null;
+            }
+        }
+
+        @Nullable
+        private Constructor<? extends ConfigurationSerializable> findConstructor() {
             try {
-                return ConfigurationSerialization.deserializeObject(output);
-            } catch (IllegalArgumentException ex) {
-                throw new YAMLException("Could not deserialize object", ex);
+                return type.getConstructor(Map.class);
+            } catch (NoSuchMethodException | SecurityException ex) {
+                return null;
             }
         }
-        return output;
+
+        @Nullable
+        @SuppressWarnings("rawtypes")
+        private ConfigurationSerializable deserialize(@NotNull Map<String, Object> input) {
+            if (inaccessible) {
+                return ConfigurationSerialization.deserializeObject(input, type);
+            }
+            for (int i = 0; i < factories.size(); i++) {
+                try {
+                    ConfigurationSerializable result = (ConfigurationSerializable) factories.get(i).invokeExact((Map) input);
+                    if (result != null) {
+                        return result;
+                    }
+                } catch (Throwable ex) {
+                    LOG.log(Level.SEVERE, "Could not call " + descriptions.get(i) + " for deserialization", ex);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The entries of a map whose values have already been deserialized, for codecs.
+     */
+    private static final class MapSource implements SerializationSource {
+
+        @NotNull
+        private final Iterator<Map.Entry<String, Object>> entries;
+        @Nullable
+        private Object value;
+
+        private MapSource(@NotNull Map<String, Object> map) {
+            entries = map.entrySet().iterator();
+        }
+
+        @Nullable
+        @Override
+        public String nextKey() {
+            while (entries.hasNext()) {
+                Map.Entry<String, Object> entry = entries.next();
+                if (!entry.getKey().equals(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                    value = entry.getValue();
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Object readValue() {
+            return value;
+        }
+
+        @Override
+        public void skipValue() {
+        }
+    }
+
+    /**
+     * Collects the keys of the top level map written to it, ignoring all values.
+     */
+    private static final class KeyCollector implements SerializationSink {
+
+        @NotNull
+        private final Set<String> keys = new HashSet<>();
+        // the number of maps and lists the current value is nested in, codecs write their entries at depth 0
+        private int depth;
+
+        @Override
+        public void beginMap(int size) {
+            depth++;
+        }
+
+        @Override
+        public void key(@NotNull String key) {
+            if (depth == 0) {
+                keys.add(key);
+            }
+        }
+
+        @Override
+        public void endMap() {
+            depth--;
+        }
+
+        @Override
+        public void beginList(int size) {
+            depth++;
+        }
+
+        @Override
+        public void endList() {
+            depth--;
+        }
+
+        @Override
+        public void nullValue() {
+        }
+
+        @Override
+        public void value(boolean value) {
+        }
+
+        @Override
+        public void value(int value) {
+        }
+
+        @Override
+        public void value(long value) {
+        }
+
+        @Override
+        public void value(double value) {
+        }
+
+        @Override
+        public void value(@NotNull Number value) {
+        }
+
+        @Override
+        public void value(@NotNull String value) {
+        }
     }
 
     /**
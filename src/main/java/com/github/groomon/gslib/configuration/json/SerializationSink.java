@@ -0,0 +1,87 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Receives the structure of a serialized configuration value as a stream of tokens, without building intermediate
+ * maps or lists.
+ * <p>
+ * Maps are written as {@link #beginMap(int)}, followed by a {@link #key(String)} and a value for each entry, and
+ * closed with {@link #endMap()}. Lists are written as {@link #beginList(int)}, followed by the values and closed with
+ * {@link #endList()}.
+ *
+ * @see SerializationHelper#serialize(Object, SerializationSink)
+ */
+public interface SerializationSink {
+
+    /**
+     * @param size The number of entries, or -1 if unknown.
+     */
+    void beginMap(int size) throws IOException;
+
+    void key(@NotNull String key) throws IOException;
+
+    void endMap() throws IOException;
+
+    /**
+     * @param size The number of elements, or -1 if unknown.
+     */
+    void beginList(int size) throws IOException;
+
+    void endList() throws IOException;
+
+    void nullValue() throws IOException;
+
+    void value(boolean value) throws IOException;
+
+    void value(int value) throws IOException;
+
+    void value(long value) throws IOException;
+
+    void value(double value) throws IOException;
+
+    /**
+     * Writes a number which is neither an {@link Integer}, {@link Long} nor {@link Double}.
+     */
+    void value(@NotNull Number value) throws IOException;
+
+    void value(@NotNull String value) throws IOException;
+
+    /**
+     * Writes a list of ints. By default it is written like any other list, but sinks may store it more compactly.
+     */
+    default void value(@NotNull IntArrayList list) throws IOException {
+        beginList(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            value(list.getInt(i));
+        }
+        endList();
+    }
+
+    /**
+     * Writes a list of longs, see {@link #value(IntArrayList)}.
+     */
+    default void value(@NotNull LongArrayList list) throws IOException {
+        beginList(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            value(list.getLong(i));
+        }
+        endList();
+    }
+
+    /**
+     * Writes a list of doubles, see {@link #value(IntArrayList)}.
+     */
+    default void value(@NotNull DoubleArrayList list) throws IOException {
+        beginList(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            value(list.getDouble(i));
+        }
+        endList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Hands out the entries of a serialized object one by one as they are read, the counterpart of
+ * {@link SerializationSink}. The type key has already been consumed when a source is passed to a
+ * {@link SerializationCodec}.
+ * <p>
+ * Each key returned by {@link #nextKey()} has to be followed by exactly one call reading or skipping its value.
+ */
+public interface SerializationSource {
+
+    /**
+     * Moves on to the next entry.
+     *
+     * @return The key of the entry, or null if the object has no more entries.
+     */
+    @Nullable
+    String nextKey() throws IOException, InvalidConfigurationException;
+
+    /**
+     * Reads the value of the current entry the same way it would be read as part of a map, deserializing nested
+     * serialized objects.
+     */
+    @Nullable
+    Object readValue() throws IOException, InvalidConfigurationException;
+
+    void skipValue() throws IOException, InvalidConfigurationException;
+
+    /**
+     * Reads the value of the current entry as the given type. Numbers are converted to the type if it is a boxed
+     * number type.
+     *
+     * @return The value, or null for a null value.
+     * @throws InvalidConfigurationException If the value is of another type.
+     */
+    @Nullable
+    default <T> T readValue(@NotNull Class<T> type) throws IOException, InvalidConfigurationException {
+        return SerializationHelper.convert(readValue(), type);
+    }
+
+    default int readInt() throws IOException, InvalidConfigurationException {
+        return readNumber().intValue();
+    }
+
+    default long readLong() throws IOException, InvalidConfigurationException {
+        return readNumber().longValue();
+    }
+
+    default double readDouble() throws IOException, InvalidConfigurationException {
+        return readNumber().doubleValue();
+    }
+
+    default boolean readBoolean() throws IOException, InvalidConfigurationException {
+        Boolean value = readValue(Boolean.class);
+        if (value == null) {
+            throw new InvalidConfigurationException("Expected a boolean but found null.");
+        }
+        return value;
+    }
+
+    @Nullable
+    default String readString() throws IOException, InvalidConfigurationException {
+        Object value = readValue();
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Reads the value of the current entry as the name of an enum constant.
+     *
+     * @return The constant, or null for a null value.
+     * @throws InvalidConfigurationException If the enum has no constant of that name.
+     */
+    @Nullable
+    default <E extends Enum<E>> E readEnum(@NotNull Class<E> type) throws IOException, InvalidConfigurationException {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidConfigurationException("Unknown " + type.getSimpleName() + " '" + name + "'.");
+        }
+    }
+
+    @NotNull
+    default Number readNumber() throws IOException, InvalidConfigurationException {
+        Number value = readValue(Number.class);
+        if (value == null) {
+            throw new InvalidConfigurationException("Expected a number but found null.");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.groomon.gslib.configuration;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationJournalTest {
+
+    private static final Logger LOG = Logger.getLogger(ConfigurationJournal.class.getName());
+
+    private Path directory;
+    private File file;
+    private Path journal;
+    private Level level;
+
+    @Before
+    public void createFile() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        file = directory.resolve("config.json").toFile();
+        Files.write(file.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        journal = directory.resolve("config.json" + ConfigurationJournal.SUFFIX);
+        // incomplete records are logged
+        level = LOG.getLevel();
+        LOG.setLevel(Level.OFF);
+    }
+
+    @After
+    public void deleteFiles() throws IOException {
+        LOG.setLevel(level);
+        try (Stream<Path> files = Files.list(directory)) {
+            for(Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void replaysAppendedRecords() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("arena.size", 5);
+        config.set("arena.spawn", new IntArrayList(new int[]{1, 64, -3}));
+        config.set("arena.name", "castle");
+        append(config, "arena.size", "arena.spawn", "arena.name", "removed");
+        config.set("arena.size", 6);
+        append(config, "arena.size");
+
+        MemoryConfiguration loaded = new MemoryConfiguration();
+        loaded.set("removed", true);
+        assertTrue(ConfigurationJournal.replay(file, loaded));
+        assertEquals(6, loaded.get("arena.size"));
+        assertEquals(Arrays.asList(1, 64, -3), loaded.get("arena.spawn"));
+        assertEquals("castle", loaded.get("arena.name"));
+        assertNull(loaded.get("removed"));
+    }
+
+    @Test
+    public void replaysSectionsAsSections() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("arena.size", 5);
+        config.set("arena.name", "castle");
+        append(config, "arena");
+
+        MemoryConfiguration loaded = new MemoryConfiguration();
+        loaded.set("arena.old", true);
+        ConfigurationJournal.replay(file, loaded);
+        assertTrue(loaded.isConfigurationSection("arena"));
+        assertEquals(5, loaded.get("arena.size"));
+        assertFalse(loaded.contains("arena.old"));
+    }
+
+    @Test
+    public void withoutJournalNothingIsReplayed() throws Exception {
+        assertFalse(ConfigurationJournal.replay(file, new MemoryConfiguration()));
+    }
+
+    @Test
+    public void dropsRecordsCutOffAtAnyPoint() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("a", 1);
+        append(config, "a");
+        int first = (int) Files.size(journal);
+        config.set("b", Arrays.asList("x", "y"));
+        append(config, "b");
+        byte[] contents = Files.readAllBytes(journal);
+
+        for(int length = 0; length <= contents.length; length++) {
+            Files.write(journal, Arrays.copyOf(contents, length));
+            MemoryConfiguration loaded = new MemoryConfiguration();
+            ConfigurationJournal.replay(file, loaded);
+            assertEquals(length >= first ? 1 : null, loaded.get("a"));
+            assertEquals(length == contents.length ? Arrays.asList("x", "y") : null, loaded.get("b"));
+            // the incomplete record is cut off, so the next record starts on a new line
+            int complete = length == contents.length ? length : length >= first ? first : 0;
+            assertEquals(complete, Files.size(journal));
+        }
+    }
+
+    @Test
+    public void appendsAfterTruncatedRecord() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("a", 1);
+        append(config, "a");
+        byte[] complete = Files.readAllBytes(journal);
+        Files.write(journal, "{\"p\":\"b\",\"v\":".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ConfigurationJournal.replay(file, new MemoryConfiguration());
+        assertArrayEquals(complete, Files.readAllBytes(journal));
+        config.set("b", 2);
+        append(config, "b");
+
+        MemoryConfiguration loaded = new MemoryConfiguration();
+        ConfigurationJournal.replay(file, loaded);
+        assertEquals(1, loaded.get("a"));
+        assertEquals(2, loaded.get("b"));
+    }
+
+    @Test
+    public void replaysRotatedJournalsFirst() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("a", 1);
+        append(config, "a");
+        Files.move(journal, directory.resolve("config.json" + ConfigurationJournal.ROTATED_SUFFIX + 1));
+        config.set("a", 2);
+        append(config, "a");
+
+        MemoryConfiguration loaded = new MemoryConfiguration();
+        assertTrue(ConfigurationJournal.replay(file, loaded));
+        assertEquals(2, loaded.get("a"));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void rejectsInvalidRecord() throws Exception {
+        Files.write(journal, "[1, 2]\n".getBytes(StandardCharsets.UTF_8));
+        ConfigurationJournal.replay(file, new MemoryConfiguration());
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void rejectsRecordWithoutPath() throws Exception {
+        Files.write(journal, "{\"v\": 1}\n".getBytes(StandardCharsets.UTF_8));
+        ConfigurationJournal.replay(file, new MemoryConfiguration());
+    }
+
+    private void append(MemoryConfiguration config, String... paths) throws IOException {
+        ConfigurationJournal log = new ConfigurationJournal();
+        log.enable(1 << 20);
+        log.reset();
+        log.sync(false);
+        for(String path : paths) {
+            log.changed(path);
+        }
+        assertFalse(log.append(file, config));
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.groomon.gslib.configuration.binary;
+
+import com.github.groomon.gslib.configuration.json.ConfigurationSamples;
+import com.github.groomon.gslib.configuration.json.JsonConfiguration;
+import com.github.groomon.gslib.configuration.json.JsonReader;
+import com.github.groomon.gslib.configuration.json.JsonWriter;
+import com.github.groomon.gslib.configuration.json.SampleObject;
+import com.github.groomon.gslib.configuration.json.SerializationHelper;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.After;
+import org.junit.Test;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryConfigurationTest {
+
+    private File file;
+
+    @After
+    public void deleteFile() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void roundTripsAllValueTypes() throws Exception {
+        BinaryConfiguration loaded = new BinaryConfiguration();
+        loaded.load(samples());
+        ConfigurationSamples.assertFilled(loaded);
+    }
+
+    @Test
+    public void roundTripsThroughBase64() throws Exception {
+        BinaryConfiguration config = new BinaryConfiguration();
+        ConfigurationSamples.fill(config);
+        BinaryConfiguration loaded = new BinaryConfiguration();
+        loaded.loadFromString(config.saveToString());
+        ConfigurationSamples.assertFilled(loaded);
+    }
+
+    @Test
+    public void convertsToJsonAndBack() throws Exception {
+        byte[] binary = samples();
+        StringWriter json = new StringWriter();
+        BinaryConverter.binaryToJson(new ByteArrayInputStream(binary), json);
+        JsonConfiguration fromJson = new JsonConfiguration();
+        fromJson.loadFromString(json.toString());
+        ConfigurationSamples.assertFilled(fromJson);
+
+        // numeric lists read from JSON are packed, so the bytes may differ, but not the document
+        ByteArrayOutputStream back = new ByteArrayOutputStream();
+        BinaryConverter.jsonToBinary(new StringReader(json.toString()), back);
+        StringWriter again = new StringWriter();
+        BinaryConverter.binaryToJson(new ByteArrayInputStream(back.toByteArray()), again);
+        assertEquals(json.toString(), again.toString());
+    }
+
+    @Test
+    public void transfersTheSameDocument() throws Exception {
+        byte[] binary = samples();
+        BinaryWriter writer = new BinaryWriter();
+        assertTrue(new BinaryReader(ByteBuffer.wrap(binary)).transferDocument(writer));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        assertArrayEquals(binary, out.toByteArray());
+    }
+
+    @Test
+    public void roundTripsSerializedObjectAtTopLevel() throws Exception {
+        SampleObject sample = ConfigurationSamples.sample();
+        BinaryWriter writer = new BinaryWriter();
+        SerializationHelper.serialize(sample, writer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+
+        StringWriter json = new StringWriter();
+        JsonWriter jsonWriter = new JsonWriter(json);
+        assertTrue(new BinaryReader(ByteBuffer.wrap(out.toByteArray())).transferDocument(jsonWriter));
+        jsonWriter.flush();
+        assertEquals(sample, new JsonReader(new StringReader(json.toString())).readValue());
+    }
+
+    @Test
+    public void emptyInputIsEmptyConfiguration() throws Exception {
+        BinaryConfiguration config = new BinaryConfiguration();
+        config.load(new byte[0]);
+        assertTrue(config.getKeys(true).isEmpty());
+    }
+
+    @Test
+    public void rejectsEveryTruncatedFile() throws Exception {
+        byte[] binary = samples();
+        for (int length = 1; length < binary.length; length++) {
+            try {
+                new BinaryConfiguration().load(Arrays.copyOf(binary, length));
+                fail("Accepted " + length + " of " + binary.length + " bytes");
+            } catch (InvalidConfigurationException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedKeyTable() throws Exception {
+        byte[] binary = samples();
+        ByteBuffer in = ByteBuffer.wrap(binary);
+        KeyTable keys = BinaryReader.readHeader(in);
+        assertTrue(keys.size() > 0);
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, keys.find(keys.get(i)));
+        }
+        assertEquals(-1, keys.find("missing"));
+        int tableEnd = in.position();
+        for (int length = 0; length < tableEnd; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(binary, length));
+            if (length == 0) {
+                assertEquals(0, BinaryReader.readHeader(truncated).size());
+                continue;
+            }
+            try {
+                BinaryReader.readHeader(truncated);
+                fail("Accepted a header of " + length + " bytes");
+            } catch (InvalidConfigurationException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsOversizedKeyCount() throws Exception {
+        ByteBuffer in = ByteBuffer.allocate(BinaryFormat.MAGIC.length + 6);
+        in.put(BinaryFormat.MAGIC).put((byte) BinaryFormat.VERSION);
+        // a key count of 2^28, more than the input holds
+        in.put((byte) 0x80).put((byte) 0x80).put((byte) 0x80).put((byte) 0x80).put((byte) 0x01);
+        in.flip();
+        try {
+            KeyTable.read(skipMagic(in));
+            fail("Accepted an oversized key count");
+        } catch (InvalidConfigurationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsOrLoadsCorruptedFiles() throws Exception {
+        byte[] binary = samples();
+        // objects which cannot be deserialized are logged
+        Logger logger = Logger.getLogger(SerializationHelper.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.OFF);
+        try {
+            for (int i = 0; i < binary.length; i++) {
+                for (int flip : new int[]{0x01, 0x80, 0xFF}) {
+                    byte[] corrupted = binary.clone();
+                    corrupted[i] ^= flip;
+                    try {
+                        new BinaryConfiguration().load(corrupted);
+                    } catch (InvalidConfigurationException expected) {
+                        // corruption which is detected has to be reported this way
+                    } catch (YAMLException expected) {
+                        // a corrupted type key, reported like an unregistered class in JSON
+                    }
+                }
+            }
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
+    @Test
+    public void mappedConfigurationReadsTheSameValues() throws Exception {
+        file = File.createTempFile("binary", ".bin");
+        Files.write(file.toPath(), samples());
+        try (MappedConfiguration mapped = MappedConfiguration.open(file)) {
+            MemoryConfiguration copy = new MemoryConfiguration();
+            for (String key : mapped.getKeys(true)) {
+                if (!(mapped.get(key) instanceof MappedConfiguration)) {
+                    copy.set(key, mapped.get(key));
+                }
+            }
+            copy.createSection("empty");
+            ConfigurationSamples.assertFilled(copy);
+        }
+    }
+
+    @Test
+    public void mappedConfigurationRejectsTruncatedFiles() throws Exception {
+        byte[] binary = samples();
+        file = File.createTempFile("binary", ".bin");
+        for (int length = 1; length < binary.length; length++) {
+            Files.write(file.toPath(), Arrays.copyOf(binary, length));
+            MappedConfiguration mapped;
+            try {
+                mapped = MappedConfiguration.open(file);
+            } catch (InvalidConfigurationException expected) {
+                continue;
+            }
+            try {
+                for (String key : mapped.getKeys(true)) {
+                    mapped.get(key);
+                }
+                fail("Read all values from " + length + " of " + binary.length + " bytes");
+            } catch (IllegalStateException expected) {
+                // expected
+            } finally {
+                mapped.close();
+            }
+        }
+    }
+
+    private static byte[] samples() throws IOException {
+        BinaryConfiguration config = new BinaryConfiguration();
+        ConfigurationSamples.fill(config);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        config.save(out);
+        return out.toByteArray();
+    }
+
+    private static ByteBuffer skipMagic(ByteBuffer in) {
+        in.position(BinaryFormat.MAGIC.length + 1);
+        return in;
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.groomon.gslib.configuration.binding;
+
+import org.bukkit.util.Vector;
+
+import java.util.List;
+
+/**
+ * Interfaces covering the return types supported by {@link BindingProcessor}. They are compiled with the annotation
+ * processors enabled, so the build fails if a generated binding does not compile.
+ */
+class BindingFixture {
+
+    enum Mode {
+        SOLO, TEAM
+    }
+
+    @ConfigBinding
+    interface Settings {
+
+        @ConfigValue("arena.enabled")
+        boolean enabled();
+
+        @ConfigValue("arena.size")
+        default int size() {
+            return 5;
+        }
+
+        @ConfigValue("arena.seed")
+        long seed();
+
+        @ConfigValue("arena.speed")
+        double speed();
+
+        @ConfigValue("arena.name")
+        String name();
+
+        @ConfigValue("arena.mode")
+        default Mode mode() {
+            return Mode.SOLO;
+        }
+
+        @ConfigValue("arena.spawn")
+        Vector spawn();
+
+        @ConfigValue("arena.players")
+        List<String> players();
+
+        @ConfigValue("arena.heights")
+        int[] heights();
+
+        @ConfigValue("arena.stats")
+        long[] stats();
+
+        @ConfigValue("arena.weights")
+        double[] weights();
+    }
+}
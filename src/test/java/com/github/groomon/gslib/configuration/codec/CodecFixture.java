@@ -0,0 +1,61 @@
+package com.github.groomon.gslib.configuration.codec;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.util.Vector;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classes covering the field types supported by {@link CodecProcessor}. They are compiled with the annotation
+ * processors enabled, so the build fails if a generated codec does not compile.
+ */
+class CodecFixture {
+
+    enum Mode {
+        SOLO, TEAM
+    }
+
+    static class Base<T> implements ConfigurationSerializable {
+
+        T generic;
+        protected int inherited;
+        transient Object cache;
+
+        @Override
+        public Map<String, Object> serialize() {
+            return Collections.emptyMap();
+        }
+    }
+
+    @GenerateCodec
+    static class Sample extends Base<String> {
+
+        static final int VERSION = 1;
+
+        boolean enabled;
+        byte small;
+        short medium;
+        int count;
+        long total;
+        float ratio;
+        double weight;
+        String name;
+        Mode mode;
+        Vector position;
+        List<String> names;
+        Map<String, Integer> scores;
+    }
+
+    @GenerateCodec(ignoreUnknownKeys = true)
+    static class Lenient implements ConfigurationSerializable {
+
+        int value;
+
+        @Override
+        public Map<String, Object> serialize() {
+            return Collections.emptyMap();
+        }
+    }
+}
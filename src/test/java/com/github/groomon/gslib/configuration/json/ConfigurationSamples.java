@@ -0,0 +1,113 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.util.Vector;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Values of every type the serialization supports, shared by the round trip tests of the formats.
+ */
+public final class ConfigurationSamples {
+
+    public static final UUID UUID_1 = new UUID(1, -2);
+    public static final UUID UUID_2 = new UUID(Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private ConfigurationSamples() {
+    }
+
+    /**
+     * Sets a value of every supported type in the section.
+     */
+    public static void fill(ConfigurationSection section) {
+        SampleObject.register();
+        section.set("scalars.string", "text \"quoted\" é\n");
+        section.set("scalars.empty", "");
+        section.set("scalars.int", -42);
+        section.set("scalars.long", 1L << 40);
+        section.set("scalars.minLong", Long.MIN_VALUE);
+        section.set("scalars.big", BigInteger.ONE.shiftLeft(70));
+        section.set("scalars.double", 0.1);
+        section.set("scalars.negativeZero", -0.0);
+        section.set("scalars.true", true);
+        section.set("scalars.false", false);
+        section.createSection("empty");
+
+        section.set("lists.strings", Arrays.asList("a", "b"));
+        section.set("lists.mixed", Arrays.asList(1, "two", 3.5, null, true));
+        section.set("lists.empty", Collections.emptyList());
+        section.set("lists.nested", Arrays.asList(Arrays.asList(1, 2), Collections.singletonMap("key", "value")));
+        section.set("lists.ints", new IntArrayList(new int[]{1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE}));
+        section.set("lists.longs", new LongArrayList(new long[]{1, Long.MIN_VALUE, Long.MAX_VALUE}));
+        section.set("lists.doubles", new DoubleArrayList(new double[]{0.5, -1e300, Double.MIN_VALUE}));
+
+        section.set("sets.ints", new SerializableIntSet(new int[]{0, 5, -7}));
+        section.set("sets.longs", new SerializableLongSet(new long[]{0, 1L << 50}));
+        section.set("sets.uuids", new SerializableUuidSet(Arrays.asList(UUID_1, UUID_2)));
+
+        section.set("objects.vector", new Vector(1.5, -2, 3));
+        section.set("objects.sample", sample());
+    }
+
+    /**
+     * Checks that the section holds the values set by {@link #fill(ConfigurationSection)}, with the same types.
+     */
+    public static void assertFilled(ConfigurationSection section) {
+        assertEquals("text \"quoted\" é\n", section.get("scalars.string"));
+        assertEquals("", section.get("scalars.empty"));
+        assertEquals(-42, section.get("scalars.int"));
+        assertEquals(1L << 40, section.get("scalars.long"));
+        assertEquals(Long.MIN_VALUE, section.get("scalars.minLong"));
+        assertEquals(BigInteger.ONE.shiftLeft(70), section.get("scalars.big"));
+        assertEquals(0.1, section.get("scalars.double"));
+        assertEquals(-0.0, section.get("scalars.negativeZero"));
+        assertEquals(true, section.get("scalars.true"));
+        assertEquals(false, section.get("scalars.false"));
+        assertTrue(section.isConfigurationSection("empty"));
+        assertTrue(section.getConfigurationSection("empty").getKeys(false).isEmpty());
+
+        assertEquals(Arrays.asList("a", "b"), section.get("lists.strings"));
+        assertEquals(Arrays.asList(1, "two", 3.5, null, true), section.get("lists.mixed"));
+        assertEquals(Collections.emptyList(), section.get("lists.empty"));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Collections.singletonMap("key", "value")), section.get("lists.nested"));
+        assertPacked(IntArrayList.class, Arrays.asList(1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE), section.get("lists.ints"));
+        assertPacked(LongArrayList.class, Arrays.asList(1L, Long.MIN_VALUE, Long.MAX_VALUE), section.get("lists.longs"));
+        assertPacked(DoubleArrayList.class, Arrays.asList(0.5, -1e300, Double.MIN_VALUE), section.get("lists.doubles"));
+
+        assertTrue(section.get("sets.ints") instanceof SerializableIntSet);
+        assertEquals(new SerializableIntSet(new int[]{0, 5, -7}), section.get("sets.ints"));
+        assertTrue(section.get("sets.longs") instanceof SerializableLongSet);
+        assertEquals(new SerializableLongSet(new long[]{0, 1L << 50}), section.get("sets.longs"));
+        assertTrue(section.get("sets.uuids") instanceof SerializableUuidSet);
+        assertEquals(new SerializableUuidSet(Arrays.asList(UUID_1, UUID_2)), section.get("sets.uuids"));
+
+        assertEquals(new Vector(1.5, -2, 3), section.get("objects.vector"));
+        assertEquals(sample(), section.get("objects.sample"));
+    }
+
+    private static void assertPacked(Class<?> type, Object expected, Object actual) {
+        assertTrue("Expected " + type.getSimpleName() + ", was " + actual, type.isInstance(actual));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * A serialized object holding nested lists, maps and serialized objects.
+     */
+    public static SampleObject sample() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("vector", new Vector(0, 1, 0));
+        map.put("ints", Arrays.asList(1, 2, 3));
+        return new SampleObject(7, 1L << 33, 0.25, "sample", Arrays.asList("x", map, new Vector(4, 5, 6)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.IntArrayList;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonConfigurationTest {
+
+    @Test
+    public void roundTripsAllValueTypes() throws Exception {
+        JsonConfiguration config = new JsonConfiguration();
+        ConfigurationSamples.fill(config);
+        ConfigurationSamples.assertFilled(reload(config.saveToString()));
+    }
+
+    @Test
+    public void savesTheSameWhenReloaded() throws Exception {
+        JsonConfiguration config = new JsonConfiguration();
+        ConfigurationSamples.fill(config);
+        String saved = config.saveToString();
+        assertEquals(saved, reload(saved).saveToString());
+    }
+
+    @Test
+    public void lazyLoadingReadsTheSameValues() throws Exception {
+        JsonConfiguration config = new JsonConfiguration();
+        ConfigurationSamples.fill(config);
+        String saved = config.saveToString();
+        for (int depth = 1; depth <= 3; depth++) {
+            JsonConfiguration lazy = new JsonConfiguration();
+            lazy.options().lazyDepth(depth);
+            lazy.loadFromString(saved);
+            assertEquals(saved, lazy.saveToString());
+            ConfigurationSamples.assertFilled(lazy);
+        }
+    }
+
+    @Test
+    public void parallelSavingWritesTheSameDocument() throws Exception {
+        JsonConfiguration config = new JsonConfiguration();
+        ConfigurationSamples.fill(config);
+        for (int i = 0; i < 100; i++) {
+            config.set("players.p" + i + ".scores", new IntArrayList(new int[]{i, i * 2}));
+            config.set("players.p" + i + ".name", "player " + i);
+        }
+        String sequential = config.saveToString();
+        config.options().parallelThreshold(10);
+        assertEquals(sequential, config.saveToString());
+    }
+
+    @Test
+    public void roundTripsSerializedObjectAtTopLevel() throws Exception {
+        SampleObject sample = ConfigurationSamples.sample();
+        Map<?, ?> built = (Map<?, ?>) SerializationHelper.serialize(sample);
+        assertEquals("SampleObject", built.get("=="));
+        assertEquals(sample, SerializationHelper.deserialize(built));
+
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        SerializationHelper.serialize(sample, writer);
+        writer.flush();
+        assertEquals(sample, new JsonReader(new StringReader(out.toString())).readValue());
+    }
+
+    @Test
+    public void keepsKeysContainingTheSeparatorWhenLazy() throws Exception {
+        String json = "{\"a.b\": {\"c\": 1}, \"d\": {\"e.f\": [1, 2]}}";
+        JsonConfiguration eager = reload(json);
+        JsonConfiguration lazy = new JsonConfiguration();
+        lazy.options().lazyDepth(2);
+        lazy.loadFromString(json);
+        assertEquals(eager.get("a.b.c"), lazy.get("a.b.c"));
+        assertEquals(Arrays.asList(1, 2), lazy.get("d.e.f"));
+        assertEquals(eager.getKeys(true), lazy.getKeys(true));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void rejectsTruncatedDocument() throws Exception {
+        reload("{\"a\": {\"b\": [1, 2");
+    }
+
+    @Test
+    public void emptyDocumentIsEmptyConfiguration() throws Exception {
+        JsonConfiguration config = reload("");
+        assertTrue(config.getKeys(true).isEmpty());
+    }
+
+    private static JsonConfiguration reload(String json) throws InvalidConfigurationException {
+        JsonConfiguration config = new JsonConfiguration();
+        config.loadFromString(json);
+        return config;
+    }
+}
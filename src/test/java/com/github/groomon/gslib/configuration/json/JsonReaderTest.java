@@ -0,0 +1,131 @@
+package com.github.groomon.gslib.configuration.json;
+
+import com.github.groomon.gslib.configuration.DoubleArrayList;
+import com.github.groomon.gslib.configuration.IntArrayList;
+import com.github.groomon.gslib.configuration.LongArrayList;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonReaderTest {
+
+    @Test
+    public void readsScalars() throws Exception {
+        assertEquals("text", read("\"text\""));
+        assertEquals(Boolean.TRUE, read("true"));
+        assertEquals(Boolean.FALSE, read("false"));
+        assertNull(read("null"));
+        assertEquals(Double.NaN, read("NaN"));
+        assertEquals(Double.NEGATIVE_INFINITY, read("-Infinity"));
+    }
+
+    @Test
+    public void readsNumbersAsTheSmallestType() throws Exception {
+        assertEquals(0, read("0"));
+        assertEquals(-42, read("-42"));
+        assertEquals(Integer.MAX_VALUE, read("2147483647"));
+        assertEquals(2147483648L, read("2147483648"));
+        assertEquals(Long.MIN_VALUE, read("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), read("9223372036854775808"));
+        assertEquals(1.5, read("1.5"));
+        assertEquals(-2e10, read("-2E10"));
+    }
+
+    @Test
+    public void readsEscapes() throws Exception {
+        assertEquals("a\"b\\c/d\n\t\u00e9\ud83d\ude00", read("\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\ud83d\\ude00\""));
+    }
+
+    @Test
+    public void readsNumericListsIntoPrimitiveLists() throws Exception {
+        Object ints = read("[1, -2, 3]");
+        assertTrue(ints instanceof IntArrayList);
+        assertEquals(Arrays.asList(1, -2, 3), ints);
+
+        Object longs = read("[1, 4294967296, -3]");
+        assertTrue(longs instanceof LongArrayList);
+        assertEquals(Arrays.asList(1L, 4294967296L, -3L), longs);
+
+        Object doubles = read("[1.5, -0.5, NaN]");
+        assertTrue(doubles instanceof DoubleArrayList);
+        assertEquals(Arrays.asList(1.5, -0.5, Double.NaN), doubles);
+    }
+
+    @Test
+    public void readsMixedListsAsBoxedLists() throws Exception {
+        Object mixed = read("[1, 2.5, \"x\", 4294967296]");
+        assertFalse(mixed instanceof IntArrayList || mixed instanceof DoubleArrayList);
+        assertEquals(Arrays.asList(1, 2.5, "x", 4294967296L), mixed);
+        assertEquals(Arrays.asList(1, 2, null), read("[1, 2, null]"));
+        assertEquals(Collections.emptyList(), read("[]"));
+    }
+
+    @Test
+    public void readsSections() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        assertTrue(new JsonReader(new StringReader("{\"a\": {\"b\": 1, \"c\": [\"x\"]}, \"d\": {}}")).readSection(config));
+        assertEquals(1, config.get("a.b"));
+        assertEquals(Collections.singletonList("x"), config.get("a.c"));
+        assertTrue(config.isConfigurationSection("d"));
+    }
+
+    @Test
+    public void readsMapsInLists() throws Exception {
+        List<?> list = (List<?>) read("[{\"a\": 1}]");
+        assertEquals(Collections.singletonMap("a", 1), list.get(0));
+        assertTrue(list.get(0) instanceof Map);
+    }
+
+    @Test
+    public void emptyInputIsNoSection() throws Exception {
+        assertFalse(new JsonReader(new StringReader("  ")).readSection(new MemoryConfiguration()));
+    }
+
+    @Test
+    public void rejectsInvalidInput() throws Exception {
+        String[] invalid = {"{", "{\"a\"", "{\"a\":", "{\"a\": 1", "{\"a\": 1,}", "{\"a\" 1}", "{a: 1}", "[1, 2",
+                "{\"a\": [1, 2}", "{\"a\": \"b}", "{\"a\": \"\\q\"}", "{\"a\": \"\\u12\"}", "{\"a\": tru}",
+                "{\"a\": 1-2}", "{} {}", "[1]"};
+        for (String json : invalid) {
+            try {
+                new JsonReader(new StringReader(json)).readSection(new MemoryConfiguration());
+                fail("Accepted " + json);
+            } catch (InvalidConfigurationException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsEveryTruncatedDocument() throws Exception {
+        String json = "{\"a\": {\"b\": [1, 2, 3], \"c\": \"text\\n\", \"d\": [1.5, 2.5]}, \"e\": [true, null, {\"f\": -7}]}";
+        new JsonReader(new StringReader(json)).readSection(new MemoryConfiguration());
+        for (int length = 1; length < json.length(); length++) {
+            String truncated = json.substring(0, length);
+            try {
+                new JsonReader(new StringReader(truncated)).readSection(new MemoryConfiguration());
+                fail("Accepted " + truncated);
+            } catch (InvalidConfigurationException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static Object read(String json) throws IOException, InvalidConfigurationException {
+        return new JsonReader(new StringReader(json)).readValue();
+    }
+}
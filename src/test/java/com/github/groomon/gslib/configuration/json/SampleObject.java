@@ -0,0 +1,77 @@
+package com.github.groomon.gslib.configuration.json;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.configuration.serialization.SerializableAs;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A serializable class used by the tests, holding values of the types configurations store.
+ */
+@SerializableAs("SampleObject")
+public class SampleObject implements ConfigurationSerializable {
+
+    static {
+        ConfigurationSerialization.registerClass(SampleObject.class);
+    }
+
+    private final int count;
+    private final long total;
+    private final double ratio;
+    private final String name;
+    private final List<?> values;
+
+    public SampleObject(int count, long total, double ratio, String name, List<?> values) {
+        this.count = count;
+        this.total = total;
+        this.ratio = ratio;
+        this.name = name;
+        this.values = values;
+    }
+
+    /**
+     * Registers the class, which happens the first time it is used.
+     */
+    public static void register() {
+    }
+
+    public static SampleObject deserialize(Map<String, Object> map) {
+        return new SampleObject(((Number) map.get("count")).intValue(), ((Number) map.get("total")).longValue(),
+                ((Number) map.get("ratio")).doubleValue(), (String) map.get("name"), (List<?>) map.get("values"));
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count);
+        map.put("total", total);
+        map.put("ratio", ratio);
+        map.put("name", name);
+        map.put("values", values);
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SampleObject)) {
+            return false;
+        }
+        SampleObject other = (SampleObject) o;
+        return count == other.count && total == other.total && Double.compare(ratio, other.ratio) == 0
+                && Objects.equals(name, other.name) && Objects.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, total, ratio, name, values);
+    }
+
+    @Override
+    public String toString() {
+        return serialize().toString();
+    }
+}